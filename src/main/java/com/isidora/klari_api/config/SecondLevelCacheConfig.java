@@ -0,0 +1,59 @@
+package com.isidora.klari_api.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Caché de segundo nivel de Hibernate para productos.
+ * Se activa con {@code klari.cache.second-level.enabled} (por defecto true) y
+ * las estadísticas de Hibernate y de cada región se publican en Micrometer.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${klari.cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    @Value("${klari.cache.statistics.enabled:true}")
+    private boolean statistics;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.generate_statistics", statistics);
+            if (enabled) {
+                properties.put("hibernate.cache.region.factory_class", "jcache");
+                properties.put("hibernate.javax.cache.provider",
+                        "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+                properties.put("hibernate.javax.cache.uri", "hibernate-cache.conf");
+                properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            }
+        };
+    }
+
+    // Aciertos, fallos, inserciones y desalojos por región (cache.gets, cache.puts, cache.evictions)
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactory.class)
+                    .unwrap(SessionFactoryImplementor.class);
+            RegionFactory regionFactory = sessionFactory.getServiceRegistry().getService(RegionFactory.class);
+            if (regionFactory instanceof JCacheRegionFactory jcache) {
+                for (String name : jcache.getCacheManager().getCacheNames()) {
+                    JCacheMetrics.monitor(registry, jcache.getCacheManager().getCache(name), "region", name);
+                }
+            }
+        };
+    }
+}
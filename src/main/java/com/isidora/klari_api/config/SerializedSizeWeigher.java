@@ -0,0 +1,43 @@
+package com.isidora.klari_api.config;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * Peso de una entrada de la caché de segundo nivel: el tamaño aproximado en
+ * bytes de su forma serializada. Permite acotar la región de productos por
+ * memoria y no por cantidad, porque ingredientes y descripciones varían mucho.
+ */
+public class SerializedSizeWeigher implements Weigher<Object, Object> {
+
+    private static final int MIN_WEIGHT = 64;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        CountingStream counter = new CountingStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            return MIN_WEIGHT;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_WEIGHT, counter.count));
+    }
+
+    private static final class CountingStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
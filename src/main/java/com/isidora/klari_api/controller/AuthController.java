@@ -3,6 +3,7 @@ package com.isidora.klari_api.controller;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.isidora.klari_api.security.TokenVerifier;
 import com.isidora.klari_api.service.AuthService;
 import com.isidora.klari_api.service.AuthService.AuthResponse;
 
@@ -26,6 +27,12 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request.email(), request.password()));
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        authService.logout(TokenVerifier.bearerToken(authHeader));
+        return ResponseEntity.noContent().build();
+    }
+
     record RegisterRequest(String username, String email, String password) {
     }
 
@@ -0,0 +1,181 @@
+package com.isidora.klari_api.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.isidora.klari_api.model.enums.ImageVariant;
+import com.isidora.klari_api.service.ImageStorageService;
+import com.isidora.klari_api.service.ImageStorageService.StoredImage;
+import com.isidora.klari_api.service.ImageVariantService;
+import com.isidora.klari_api.service.ImageVariantService.VariantImage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sirve las imágenes del almacén y sus variantes reducidas. Como la URL
+ * contiene el hash del contenido, la respuesta es inmutable: ETag fuerte,
+ * caché de un año y soporte de rangos. Ninguna respuesta se interpreta como
+ * documento: nosniff, CSP sandbox y descarga forzada para lo que no es raster.
+ */
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String CACHE_CONTROL_PENDING = "public, max-age=60";
+    private static final String CONTENT_SECURITY_POLICY = "default-src 'none'; sandbox";
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // Atributos con los que Tomcat envía el archivo con sendfile, sin pasar por la JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+
+    @GetMapping("/{hash}")
+    public void serve(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        Optional<StoredImage> found = imageStorageService.find(hash);
+        if (found.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        StoredImage image = found.get();
+        send(image.path(), image.contentType(), "\"" + hash + "\"", CACHE_CONTROL, request, response);
+    }
+
+    @GetMapping("/{hash}/{variant}")
+    public void serveVariant(@PathVariable String hash, @PathVariable String variant, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        Optional<VariantImage> found = ImageVariant.fromKey(variant)
+                .flatMap(key -> imageVariantService.find(hash, key));
+        if (found.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        VariantImage image = found.get();
+        // Mientras la variante no existe se entrega el original sin cachearlo a largo plazo
+        String etag = image.definitive() ? "\"" + hash + "-" + variant + "\"" : "\"" + hash + "\"";
+        send(image.path(), image.contentType(), etag,
+                image.definitive() ? CACHE_CONTROL : CACHE_CONTROL_PENDING, request, response);
+    }
+
+    private void send(Path path, String contentType, String etag, String cacheControl, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", CONTENT_SECURITY_POLICY);
+        // SVG u otros archivos guardados antes de limitar los tipos
+        if (!ImageStorageService.isRaster(contentType)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = file.size();
+            long start = 0;
+            long end = length - 1;
+
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            // Rangos múltiples o mal formados se ignoran y se entrega el archivo completo
+            Matcher matcher = range != null ? SINGLE_RANGE.matcher(range.trim()) : null;
+            if (matcher != null && matcher.matches() && (ifRange == null || ifRange.equals(etag))) {
+                long[] bounds = parseRange(matcher.group(1), matcher.group(2), length);
+                if (bounds == null) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+
+            long count = end - start + 1;
+            response.setContentType(contentType);
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = file.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        return Arrays.stream(header.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+
+    // Devuelve null si el rango no se puede satisfacer
+    private static long[] parseRange(String first, String last, long length) {
+        if (length == 0 || (first.isEmpty() && last.isEmpty())) {
+            return null;
+        }
+        try {
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                return suffix == 0 ? null : new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            return start > end || start >= length ? null : new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
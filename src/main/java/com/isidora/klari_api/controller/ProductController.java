@@ -1,24 +1,41 @@
 package com.isidora.klari_api.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ImportReportDTO;
+import com.isidora.klari_api.dto.ProductFacetsDTO;
+import com.isidora.klari_api.dto.ProductSuggestionDTO;
+import com.isidora.klari_api.dto.ProductSummaryBatchDTO;
 import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.VersionedProductSummaryDTO;
 import com.isidora.klari_api.model.Product;
 import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.search.ProductFilter;
+import com.isidora.klari_api.service.ProductExportService;
+import com.isidora.klari_api.service.ProductImportService;
 import com.isidora.klari_api.service.ProductService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -28,6 +45,8 @@ import lombok.RequiredArgsConstructor;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
 
     @PostMapping
     public ResponseEntity<Product> create(@Valid @RequestBody Product product) {
@@ -40,19 +59,78 @@ public class ProductController {
         return ResponseEntity.ok(productService.findAll());
     }
 
+    // Catálogo completo en streaming (NDJSON); gzip por parámetro o según Accept-Encoding
+    @GetMapping(value = { "", "/export" }, produces = ProductExportService.NDJSON)
+    public void export(
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+
+        boolean compress = gzip != null ? gzip : acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setContentType(ProductExportService.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                productExportService.export(out);
+            }
+        } else {
+            productExportService.export(response.getOutputStream());
+        }
+    }
+
+    // Con If-None-Match se consulta solo la versión; si coincide se responde 304 sin cargar el producto
     @GetMapping("/{id}")
-    public ResponseEntity<Product> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.findById(id));
+    public ResponseEntity<Product> findById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(etag(id, productService.findVersion(id)))) {
+            return null;
+        }
+        Product product = productService.findById(id);
+        return ResponseEntity.ok().eTag(etag(id, product.getVersion())).body(product);
     }
 
+    // Igual que /{id}: la versión sola solo si hay If-None-Match; si no, viene con el resumen
     @GetMapping("/{id}/summary")
-    public ResponseEntity<ProductSummaryDTO> findSummaryById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.findSummaryById(id));
+    public ResponseEntity<ProductSummaryDTO> findSummaryById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(etag(id, productService.findVersion(id)))) {
+            return null;
+        }
+        VersionedProductSummaryDTO found = productService.findSummaryById(id);
+        return ResponseEntity.ok().eTag(etag(id, found.version())).body(found.summary());
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Product> update(@PathVariable Long id, @Valid @RequestBody Product productDetails) {
-        return ResponseEntity.ok(productService.update(id, productDetails));
+    public ResponseEntity<Product> update(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody Product productDetails) {
+
+        Product updated = productService.update(id, productDetails, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(id, updated.getVersion())).body(updated);
+    }
+
+    private static String etag(Long id, Long version) {
+        return "\"" + id + "-" + (version != null ? version : 0L) + "\"";
+    }
+
+    // Versión esperada según If-Match; un ETag de otro producto nunca coincide
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("\"") && tag.endsWith("\"") && tag.length() > 1) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        String prefix = id + "-";
+        try {
+            return tag.startsWith(prefix) ? Long.parseLong(tag.substring(prefix.length())) : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -63,12 +141,28 @@ public class ProductController {
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Product>> createBulk(@Valid @RequestBody List<Product> products) {
-        List<Product> saved = products.stream()
-                .map(productService::create)
-                .toList();
+        List<Product> saved = productService.createAll(products);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // Importación masiva en streaming: inserta o actualiza por (marca, nombre)
+    @PostMapping(value = "/import", consumes = {
+            MediaType.APPLICATION_JSON_VALUE, ProductExportService.NDJSON, "text/csv" })
+    public ResponseEntity<ImportReportDTO> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+
+        ImportReportDTO report;
+        if (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            report = productImportService.importJson(body);
+        } else if (contentType.isCompatibleWith(MediaType.parseMediaType(ProductExportService.NDJSON))) {
+            report = productImportService.importNdjson(body);
+        } else {
+            report = productImportService.importCsv(body);
+        }
+        return ResponseEntity.ok(report);
+    }
+
     // Búsquedas específicas - PAGINADAS
 
     @GetMapping("/category/{category}")
@@ -86,11 +180,68 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<Product>> search(
+    public ResponseEntity<Page<ProductSummaryDTO>> search(
             @RequestParam(value = "q", required = false) String query,
             @RequestParam(value = "category", required = false) ProductCategory category,
+            @RequestParam(value = "applicationTime", required = false) ProductApplicationTime applicationTime,
+            @RequestParam(value = "skinType", required = false) SkinType skinType,
+            @RequestParam(value = "goals", required = false) Set<Goal> goals,
+            @RequestParam(value = "includeIngredients", required = false) Set<String> includeIngredients,
+            @RequestParam(value = "excludeIngredients", required = false) Set<String> excludeIngredients,
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
-        return ResponseEntity.ok(productService.search(query, category, pageable));
+        ProductFilter filter = new ProductFilter(category, applicationTime, skinType, goals, includeIngredients,
+                excludeIngredients);
+        return ResponseEntity.ok(productService.search(query, filter, pageable));
+    }
+
+    // Conteos por categoría, momento de uso, tipo de piel y meta para la búsqueda actual
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> facets(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "category", required = false) ProductCategory category,
+            @RequestParam(value = "applicationTime", required = false) ProductApplicationTime applicationTime,
+            @RequestParam(value = "skinType", required = false) SkinType skinType,
+            @RequestParam(value = "goals", required = false) Set<Goal> goals,
+            @RequestParam(value = "includeIngredients", required = false) Set<String> includeIngredients,
+            @RequestParam(value = "excludeIngredients", required = false) Set<String> excludeIngredients) {
+        ProductFilter filter = new ProductFilter(category, applicationTime, skinType, goals, includeIngredients,
+                excludeIngredients);
+        return ResponseEntity.ok(productService.facets(query, filter));
+    }
+
+    // Búsquedas por cursor (sin COUNT ni OFFSET)
+
+    @GetMapping("/category/{category}/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollByCategory(
+            @PathVariable ProductCategory category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollSummaries(category, sort, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
+    @GetMapping("/search/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollSearch(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "category", required = false) ProductCategory category,
+            @RequestParam(value = "applicationTime", required = false) ProductApplicationTime applicationTime,
+            @RequestParam(value = "skinType", required = false) SkinType skinType,
+            @RequestParam(value = "goals", required = false) Set<Goal> goals,
+            @RequestParam(value = "includeIngredients", required = false) Set<String> includeIngredients,
+            @RequestParam(value = "excludeIngredients", required = false) Set<String> excludeIngredients,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        ProductFilter filter = new ProductFilter(category, applicationTime, skinType, goals, includeIngredients,
+                excludeIngredients);
+        return ResponseEntity.ok(productService.scrollSearch(query, filter, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
+    // Autocompletado (sin base de datos)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, Math.min(limit, 20)));
     }
 
     // Recomendaciones para rutinas - PAGINADAS
@@ -122,4 +273,23 @@ public class ProductController {
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
         return ResponseEntity.ok(productService.findAllSummary(pageable));
     }
+
+    // Varios resúmenes por id en una sola consulta: ?ids=1,2,3 o POST con la lista en el cuerpo
+    @GetMapping(value = "/summary", params = "ids")
+    public ResponseEntity<ProductSummaryBatchDTO> findSummariesByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.findSummariesByIds(ids));
+    }
+
+    @PostMapping("/summary/batch")
+    public ResponseEntity<ProductSummaryBatchDTO> findSummariesByIdsBatch(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(productService.findSummariesByIds(ids));
+    }
+
+    @GetMapping("/summary/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollSummary(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollSummaries(null, sort, cursor, Math.max(1, Math.min(size, 100))));
+    }
 }
\ No newline at end of file
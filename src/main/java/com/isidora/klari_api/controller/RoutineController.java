@@ -6,6 +6,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.isidora.klari_api.dto.RoutineSummaryDTO;
 import com.isidora.klari_api.model.Routine;
 import com.isidora.klari_api.service.RoutineService;
 
@@ -20,20 +21,20 @@ public class RoutineController {
     private final RoutineService routineService;
 
     @PostMapping
-    public ResponseEntity<Routine> create(@RequestBody Routine routine) {
+    public ResponseEntity<RoutineSummaryDTO> create(@RequestBody Routine routine) {
         Routine created = routineService.create(routine);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        return ResponseEntity.status(HttpStatus.CREATED).body(RoutineSummaryDTO.from(created));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Routine> findById(@PathVariable Long id) {
+    public ResponseEntity<RoutineSummaryDTO> findById(@PathVariable Long id) {
         return routineService.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Routine>> findByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<RoutineSummaryDTO>> findByUserId(@PathVariable Long userId) {
         return ResponseEntity.ok(routineService.findByUserId(userId));
     }
 
@@ -44,40 +45,40 @@ public class RoutineController {
     }
 
     @GetMapping("/user/{userId}/day/active")
-    public ResponseEntity<Routine> findActiveDayRoutine(@PathVariable Long userId) {
+    public ResponseEntity<RoutineSummaryDTO> findActiveDayRoutine(@PathVariable Long userId) {
         return routineService.findActiveDayRoutine(userId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{userId}/day/inactive")
-    public ResponseEntity<List<Routine>> findInactiveDayRoutines(@PathVariable Long userId) {
+    public ResponseEntity<List<RoutineSummaryDTO>> findInactiveDayRoutines(@PathVariable Long userId) {
         return ResponseEntity.ok(routineService.findInactiveDayRoutines(userId));
     }
 
     @GetMapping("/user/{userId}/night/active")
-    public ResponseEntity<Routine> findActiveNightRoutine(@PathVariable Long userId) {
+    public ResponseEntity<RoutineSummaryDTO> findActiveNightRoutine(@PathVariable Long userId) {
         return routineService.findActiveNightRoutine(userId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{userId}/night/inactive")
-    public ResponseEntity<List<Routine>> findInactiveNightRoutines(@PathVariable Long userId) {
+    public ResponseEntity<List<RoutineSummaryDTO>> findInactiveNightRoutines(@PathVariable Long userId) {
         return ResponseEntity.ok(routineService.findInactiveNightRoutines(userId));
     }
 
     // ✅ Sin try-catch - el GlobalExceptionHandler maneja los errores
     @PostMapping("/user/{userId}/day/initial")
-    public ResponseEntity<Routine> createInitialDayRoutine(@PathVariable Long userId) {
+    public ResponseEntity<RoutineSummaryDTO> createInitialDayRoutine(@PathVariable Long userId) {
         Routine routine = routineService.createInitialDayRoutine(userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(routine);
+        return ResponseEntity.status(HttpStatus.CREATED).body(RoutineSummaryDTO.from(routine));
     }
 
     @PostMapping("/user/{userId}/night/initial")
-    public ResponseEntity<Routine> createInitialNightRoutine(@PathVariable Long userId) {
+    public ResponseEntity<RoutineSummaryDTO> createInitialNightRoutine(@PathVariable Long userId) {
         Routine routine = routineService.createInitialNightRoutine(userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(routine);
+        return ResponseEntity.status(HttpStatus.CREATED).body(RoutineSummaryDTO.from(routine));
     }
 
     @PostMapping("/{routineId}/products/{productId}")
@@ -11,13 +11,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.HomeDTO;
+import com.isidora.klari_api.dto.MembershipBatchDTO;
+import com.isidora.klari_api.dto.MembershipBatchRequestDTO;
+import com.isidora.klari_api.dto.MembershipChangeDTO;
 import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.RoutineSummaryDTO;
+import com.isidora.klari_api.dto.SavedStatusDTO;
 import com.isidora.klari_api.dto.UserProfileDTO;
-import com.isidora.klari_api.model.Routine;
-import com.isidora.klari_api.model.User;
 import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.service.HomeService;
+import com.isidora.klari_api.service.RoutineService;
 import com.isidora.klari_api.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,49 +37,70 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
+    private final RoutineService routineService;
+    private final HomeService homeService;
 
     @GetMapping("/{id}")
     public ResponseEntity<UserProfileDTO> findById(@PathVariable Long id) {
-        User u = userService.findById(id);
-        UserProfileDTO dto = new UserProfileDTO(
-                u.getId(),
-                u.getUsername(),
-                u.getEmail(),
-                u.getSkinType(),
-                u.getGoals());
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(userService.getProfile(id));
+    }
+
+    // Todo lo que muestra la pantalla de inicio en un solo viaje
+    @GetMapping("/{id}/home")
+    public ResponseEntity<HomeDTO> getHome(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "LIMPIADOR") ProductCategory category,
+            @RequestParam(defaultValue = "DIA") ProductApplicationTime time,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(homeService.getHome(id, category, time, Math.max(1, Math.min(size, 50))));
     }
 
     @PostMapping("/{userId}/favorites/{productId}")
-    public ResponseEntity<Void> addFavorite(
+    public ResponseEntity<MembershipChangeDTO> addFavorite(
             @PathVariable Long userId,
             @PathVariable Long productId) {
-        userService.addFavorite(userId, productId);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        boolean changed = userService.addFavorite(userId, productId);
+        return ResponseEntity.status(changed ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(new MembershipChangeDTO(productId, changed));
     }
 
     @DeleteMapping("/{userId}/favorites/{productId}")
-    public ResponseEntity<Void> removeFavorite(
+    public ResponseEntity<MembershipChangeDTO> removeFavorite(
             @PathVariable Long userId,
             @PathVariable Long productId) {
-        userService.removeFavorite(userId, productId);
-        return ResponseEntity.noContent().build();
+        boolean changed = userService.removeFavorite(userId, productId);
+        return ResponseEntity.ok(new MembershipChangeDTO(productId, changed));
+    }
+
+    @PostMapping("/{userId}/favorites/batch")
+    public ResponseEntity<MembershipBatchDTO> updateFavorites(
+            @PathVariable Long userId,
+            @RequestBody MembershipBatchRequestDTO request) {
+        return ResponseEntity.ok(userService.updateFavorites(userId, request));
     }
 
     @PostMapping("/{userId}/inventory/{productId}")
-    public ResponseEntity<Void> addToInventory(
+    public ResponseEntity<MembershipChangeDTO> addToInventory(
             @PathVariable Long userId,
             @PathVariable Long productId) {
-        userService.addToInventory(userId, productId);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        boolean changed = userService.addToInventory(userId, productId);
+        return ResponseEntity.status(changed ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(new MembershipChangeDTO(productId, changed));
     }
 
     @DeleteMapping("/{userId}/inventory/{productId}")
-    public ResponseEntity<Void> removeFromInventory(
+    public ResponseEntity<MembershipChangeDTO> removeFromInventory(
             @PathVariable Long userId,
             @PathVariable Long productId) {
-        userService.removeFromInventory(userId, productId);
-        return ResponseEntity.noContent().build();
+        boolean changed = userService.removeFromInventory(userId, productId);
+        return ResponseEntity.ok(new MembershipChangeDTO(productId, changed));
+    }
+
+    @PostMapping("/{userId}/inventory/batch")
+    public ResponseEntity<MembershipBatchDTO> updateInventory(
+            @PathVariable Long userId,
+            @RequestBody MembershipBatchRequestDTO request) {
+        return ResponseEntity.ok(userService.updateInventory(userId, request));
     }
 
     @GetMapping("/{id}/skin-type")
@@ -109,8 +138,8 @@ public class UserController {
     }
 
     @GetMapping("/{id}/routines")
-    public ResponseEntity<List<Routine>> getRoutines(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getRoutines(id));
+    public ResponseEntity<List<RoutineSummaryDTO>> getRoutines(@PathVariable Long id) {
+        return ResponseEntity.ok(routineService.findByUserId(id));
     }
 
     @GetMapping("/{id}/favorites/summary")
@@ -137,6 +166,39 @@ public class UserController {
         return ResponseEntity.ok(userService.getInventorySummaries(id, pageable));
     }
 
+    @GetMapping("/{id}/favorites/summary/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollFavoriteSummaries(
+            @PathVariable Long id,
+            @RequestParam(required = false) ProductCategory category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(userService.scrollFavoriteSummaries(id, category, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
+    @GetMapping("/{id}/inventory/summary/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollInventorySummaries(
+            @PathVariable Long id,
+            @RequestParam(required = false) ProductCategory category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(userService.scrollInventorySummaries(id, category, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
+    // Estado guardado de varios productos a la vez (por ejemplo, una grilla del catálogo)
+    @GetMapping(value = "/{userId}/saved", params = "ids")
+    public ResponseEntity<List<SavedStatusDTO>> getSavedStatus(
+            @PathVariable Long userId,
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.getSavedStatus(userId, ids));
+    }
+
+    @PostMapping("/{userId}/saved/batch")
+    public ResponseEntity<List<SavedStatusDTO>> getSavedStatusBatch(
+            @PathVariable Long userId,
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(userService.getSavedStatus(userId, ids));
+    }
+
     @GetMapping("/{userId}/favorites/{productId}/exists")
     public ResponseEntity<Boolean> isFavorite(
             @PathVariable Long userId,
@@ -0,0 +1,90 @@
+package com.isidora.klari_api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Posición de una paginación por cursor: el tipo de orden, el valor de la
+ * clave de orden y el id del último elemento entregado. Se serializa como
+ * base64 url-safe opaco; un cursor solo sirve para el orden que lo emitió.
+ */
+public record Cursor(Kind kind, String key, long id) {
+
+    private static final char SEPARATOR = '\u0000';
+
+    public enum Kind {
+        ID('i'),
+        NAME('n'),
+        RELEVANCE('r');
+
+        private final char code;
+
+        Kind(char code) {
+            this.code = code;
+        }
+
+        static Kind of(char code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Tipo de cursor desconocido: " + code);
+        }
+    }
+
+    public static Cursor of(long id) {
+        return new Cursor(Kind.ID, "", id);
+    }
+
+    public static Cursor ofName(String name, long id) {
+        return new Cursor(Kind.NAME, name, id);
+    }
+
+    // Float.toString conserva el valor exacto al volver a leerlo
+    public static Cursor ofRelevance(float score, long id) {
+        return new Cursor(Kind.RELEVANCE, Float.toString(score), id);
+    }
+
+    public float score() {
+        return Float.parseFloat(key);
+    }
+
+    public String encode() {
+        byte[] raw = (kind.code + key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static Cursor decode(String value, Kind expected) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Cursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            cursor = new Cursor(Kind.of(raw.charAt(0)), raw.substring(1, separator),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+        if (cursor.kind != expected) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor no corresponde a este orden");
+        }
+        if (expected == Kind.RELEVANCE && !isScore(cursor.key)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+        return cursor;
+    }
+
+    private static boolean isScore(String key) {
+        try {
+            return Float.isFinite(Float.parseFloat(key));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
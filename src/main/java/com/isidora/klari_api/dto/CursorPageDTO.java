@@ -0,0 +1,22 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDTO<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasNext) {
+
+    // fetched trae hasta size + 1 elementos: el sobrante solo indica que hay más
+    public static <T> CursorPageDTO<T> of(List<T> fetched, int size, Function<T, Cursor> cursorOf) {
+        boolean hasNext = fetched.size() > size;
+        List<T> content = hasNext ? fetched.subList(0, size) : fetched;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(size - 1)).encode() : null;
+        return new CursorPageDTO<>(content, nextCursor, hasNext);
+    }
+
+    public <R> CursorPageDTO<R> map(Function<T, R> mapper) {
+        return new CursorPageDTO<>(content.stream().map(mapper).toList(), nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,15 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+import java.util.Set;
+
+// Las partes que no llegaron a tiempo quedan en null y se nombran en missing
+public record HomeDTO(
+        UserProfileDTO profile,
+        RoutineSummaryDTO dayRoutine,
+        RoutineSummaryDTO nightRoutine,
+        CursorPageDTO<ProductSummaryDTO> favorites,
+        CursorPageDTO<ProductSummaryDTO> inventory,
+        List<ProductSummaryDTO> recommendations,
+        Set<String> missing) {
+}
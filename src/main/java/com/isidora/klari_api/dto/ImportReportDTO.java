@@ -0,0 +1,20 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+
+public record ImportReportDTO(
+        long total,
+        long inserted,
+        long updated,
+        long rejected,
+        long millis,
+        List<ChunkResult> chunks,
+        List<RejectedRow> rejectedRows) {
+
+    public record ChunkResult(int chunk, int rows, int inserted, int updated, int rejected, long millis) {
+    }
+
+    // row es la posición de la fila en la entrada, empezando en 1
+    public record RejectedRow(long row, String reason) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+
+// Resultado por id en el orden pedido; missing son los ids a agregar que no existen
+public record MembershipBatchDTO(
+        List<MembershipChangeDTO> added,
+        List<MembershipChangeDTO> removed,
+        List<Long> missing) {
+}
@@ -0,0 +1,9 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+
+// Ids de productos a agregar y a quitar; cualquiera de las dos listas puede faltar
+public record MembershipBatchRequestDTO(
+        List<Long> add,
+        List<Long> remove) {
+}
@@ -0,0 +1,7 @@
+package com.isidora.klari_api.dto;
+
+// changed es false si el producto ya estaba (al agregar) o ya no estaba (al quitar)
+public record MembershipChangeDTO(
+        Long productId,
+        boolean changed) {
+}
@@ -0,0 +1,17 @@
+package com.isidora.klari_api.dto;
+
+import java.util.Map;
+
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+// Conteos por valor de cada faceta; cada faceta ignora su propio filtro para mostrar las alternativas
+public record ProductFacetsDTO(
+        long total,
+        Map<ProductCategory, Long> categories,
+        Map<ProductApplicationTime, Long> applicationTimes,
+        Map<SkinType, Long> skinTypes,
+        Map<Goal, Long> goals) {
+}
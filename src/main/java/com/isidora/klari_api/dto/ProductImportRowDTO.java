@@ -0,0 +1,16 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+
+// Fila de importación tal como llega; los enums se validan al procesar el bloque
+public record ProductImportRowDTO(
+        String name,
+        String brand,
+        String imageUrl,
+        String ingredients,
+        String description,
+        String category,
+        String applicationTime,
+        List<String> goals,
+        List<String> skinTypes) {
+}
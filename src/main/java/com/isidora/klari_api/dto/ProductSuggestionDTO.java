@@ -0,0 +1,16 @@
+package com.isidora.klari_api.dto;
+
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+public record ProductSuggestionDTO(
+        String text,
+        Field field,
+        Long productId,
+        ProductCategory category) {
+
+    // Las sugerencias de marca no apuntan a un producto concreto
+    public enum Field {
+        NAME,
+        BRAND
+    }
+}
@@ -0,0 +1,9 @@
+package com.isidora.klari_api.dto;
+
+import java.util.List;
+
+// Resúmenes en el orden pedido; missing son los ids que no existen
+public record ProductSummaryBatchDTO(
+        List<ProductSummaryDTO> products,
+        List<Long> missing) {
+}
@@ -1,6 +1,13 @@
 package com.isidora.klari_api.dto;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ImageVariant;
 import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.service.ImageStorageService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -12,4 +19,26 @@ public class ProductSummaryDTO {
     private String brand;
     private String imageUrl;
     private ProductCategory category;
+
+    public static ProductSummaryDTO from(Product product) {
+        return new ProductSummaryDTO(
+                product.getId(),
+                product.getName(),
+                product.getBrand(),
+                product.getImageUrl(),
+                product.getCategory());
+    }
+
+    // URLs de las variantes reducidas; solo existen para imágenes del almacén
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, String> getImages() {
+        if (ImageStorageService.hashOf(imageUrl).isEmpty()) {
+            return null;
+        }
+        Map<String, String> images = new LinkedHashMap<>();
+        for (ImageVariant variant : ImageVariant.values()) {
+            images.put(variant.getKey(), imageUrl + "/" + variant.getKey());
+        }
+        return images;
+    }
 }
@@ -0,0 +1,26 @@
+package com.isidora.klari_api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.enums.RoutineType;
+
+// Rutina con sus pasos como resúmenes de producto, sin ingredientes ni descripción
+public record RoutineSummaryDTO(
+        Long id,
+        RoutineType routineType,
+        boolean active,
+        LocalDateTime createdAt,
+        List<ProductSummaryDTO> products) {
+
+    public static RoutineSummaryDTO of(Routine routine, List<ProductSummaryDTO> products) {
+        return new RoutineSummaryDTO(routine.getId(), routine.getRoutineType(), routine.isActive(),
+                routine.getCreatedAt(), products);
+    }
+
+    // Para rutinas con los productos ya cargados (por ejemplo, recién creadas)
+    public static RoutineSummaryDTO from(Routine routine) {
+        return of(routine, routine.getProducts().stream().map(ProductSummaryDTO::from).toList());
+    }
+}
@@ -0,0 +1,8 @@
+package com.isidora.klari_api.dto;
+
+// Si el producto está en favoritos y en el inventario del usuario
+public record SavedStatusDTO(
+        Long productId,
+        boolean favorite,
+        boolean inventory) {
+}
@@ -0,0 +1,12 @@
+package com.isidora.klari_api.dto;
+
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+// Resumen junto con la versión del producto, para armar el ETag con la misma consulta
+public record VersionedProductSummaryDTO(ProductSummaryDTO summary, Long version) {
+
+    public VersionedProductSummaryDTO(Long id, String name, String brand, String imageUrl,
+            ProductCategory category, Long version) {
+        this(new ProductSummaryDTO(id, name, brand, imageUrl, category), version);
+    }
+}
@@ -2,10 +2,12 @@ package com.isidora.klari_api.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -27,6 +29,41 @@ public class GlobalExceptionHandler {
                         "path", request.getRequestURI()));
     }
 
+    // Más específico que RuntimeException: conserva el estado que eligió quien la lanzó
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, Object>> handleResponseStatusException(
+            ResponseStatusException ex,
+            HttpServletRequest request) {
+
+        int status = ex.getStatusCode().value();
+        HttpStatus resolved = HttpStatus.resolve(status);
+        String message = ex.getReason() != null ? ex.getReason()
+                : resolved != null ? resolved.getReasonPhrase() : String.valueOf(status);
+
+        return ResponseEntity
+                .status(ex.getStatusCode())
+                .headers(ex.getHeaders())
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", status,
+                        "message", message,
+                        "path", request.getRequestURI()));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLocking(
+            ObjectOptimisticLockingFailureException ex,
+            HttpServletRequest request) {
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", 409,
+                        "message", "El recurso fue modificado por otra persona, vuelve a cargarlo",
+                        "path", request.getRequestURI()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationException(
             MethodArgumentNotValidException ex,
@@ -3,13 +3,22 @@ package com.isidora.klari_api.model;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import com.isidora.klari_api.model.converter.GoalMaskConverter;
+import com.isidora.klari_api.model.converter.SkinTypeMaskConverter;
 import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.SkinType;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +26,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 
 import lombok.Getter;
@@ -28,15 +38,20 @@ import lombok.Setter;
 @NoArgsConstructor
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
+@NaturalIdCache(region = "product-natural-ids")
 public class Product {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId(mutable = true)
     @Column(nullable = false)
     private String name;
 
+    @NaturalId(mutable = true)
     @Column(nullable = false)
     private String brand;
 
@@ -57,12 +72,20 @@ public class Product {
     @Column(nullable = false)
     private ProductApplicationTime applicationTime;
 
-    @ElementCollection
-    @Enumerated(EnumType.STRING)
+    // Metas y tipos de piel se guardan como máscaras de bits (1 << ordinal) en la misma fila
+    @Convert(converter = GoalMaskConverter.class)
+    @Column(name = "goals_mask", nullable = false)
+    @ColumnDefault("0")
     private Set<Goal> goals = new HashSet<>();
 
-    @ElementCollection
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = SkinTypeMaskConverter.class)
+    @Column(name = "skin_types_mask", nullable = false)
+    @ColumnDefault("0")
     private Set<SkinType> skinTypes = new HashSet<>();
 
+    // Se incrementa en cada escritura; se expone como ETag
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
 }
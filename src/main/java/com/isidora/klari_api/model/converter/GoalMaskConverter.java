@@ -0,0 +1,23 @@
+package com.isidora.klari_api.model.converter;
+
+import java.util.Set;
+
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.Goal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class GoalMaskConverter implements AttributeConverter<Set<Goal>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<Goal> goals) {
+        return EnumMask.of(goals);
+    }
+
+    @Override
+    public Set<Goal> convertToEntityAttribute(Integer mask) {
+        return EnumMask.toSet(mask == null ? 0 : mask, Goal.class);
+    }
+}
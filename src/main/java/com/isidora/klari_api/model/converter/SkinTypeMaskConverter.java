@@ -0,0 +1,23 @@
+package com.isidora.klari_api.model.converter;
+
+import java.util.Set;
+
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class SkinTypeMaskConverter implements AttributeConverter<Set<SkinType>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<SkinType> skinTypes) {
+        return EnumMask.of(skinTypes);
+    }
+
+    @Override
+    public Set<SkinType> convertToEntityAttribute(Integer mask) {
+        return EnumMask.toSet(mask == null ? 0 : mask, SkinType.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.isidora.klari_api.model.enums;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Empaqueta conjuntos de enums pequeños en un entero: el bit {@code 1 << ordinal}
+ * representa a cada valor.
+ */
+public final class EnumMask {
+
+    private EnumMask() {
+    }
+
+    public static <E extends Enum<E>> int of(E value) {
+        return value == null ? 0 : 1 << value.ordinal();
+    }
+
+    public static <E extends Enum<E>> int of(Collection<E> values) {
+        int mask = 0;
+        if (values != null) {
+            for (E value : values) {
+                mask |= of(value);
+            }
+        }
+        return mask;
+    }
+
+    public static <E extends Enum<E>> Set<E> toSet(int mask, Class<E> type) {
+        EnumSet<E> values = EnumSet.noneOf(type);
+        for (E value : type.getEnumConstants()) {
+            if ((mask & of(value)) != 0) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
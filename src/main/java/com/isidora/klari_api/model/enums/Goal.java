@@ -1,5 +1,6 @@
 package com.isidora.klari_api.model.enums;
 
+// El ordinal define el bit en products.goals_mask: los valores nuevos van al final
 public enum Goal {
     MANCHAS("Eliminar manchas"),
     TEXTURA("Mejorar textura"),
@@ -0,0 +1,31 @@
+package com.isidora.klari_api.model.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ImageVariant {
+    THUMBNAIL("thumbnail", 128),
+    CARD("card", 400),
+    DETAIL("detail", 1024);
+
+    private final String key;
+    private final int maxSize;
+
+    ImageVariant(String key, int maxSize) {
+        this.key = key;
+        this.maxSize = maxSize;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // Lado mayor de la imagen derivada, en píxeles
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public static Optional<ImageVariant> fromKey(String key) {
+        return Arrays.stream(values()).filter(variant -> variant.key.equals(key)).findFirst();
+    }
+}
@@ -1,5 +1,6 @@
 package com.isidora.klari_api.model.enums;
 
+// El ordinal define el bit en products.skin_types_mask: los valores nuevos van al final
 public enum SkinType {
     GRASA("Piel grasa"),
     MIXTA("Piel mixta"),
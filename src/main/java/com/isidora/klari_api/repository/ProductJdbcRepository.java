@@ -0,0 +1,111 @@
+package com.isidora.klari_api.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.EnumMask;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Escrituras masivas del catálogo con JDBC. Se usa en la importación: cada
+ * bloque se escribe con un solo INSERT ... ON CONFLICT (PostgreSQL, con
+ * arreglos), de modo que importaciones simultáneas, incluso en otras
+ * instancias, no duplican (marca, nombre). Quien llama debe abrir la transacción.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductJdbcRepository {
+
+    // xmax = 0 solo en las filas recién insertadas; las actualizadas por el conflicto lo tienen asignado
+    private static final String UPSERT_SQL = """
+            INSERT INTO products (name, brand, image_url, ingredients, description, category, application_time,
+                goals_mask, skin_types_mask, version)
+            SELECT r.name, r.brand, r.image_url, r.ingredients, r.description, r.category, r.application_time,
+                r.goals_mask, r.skin_types_mask, 0
+            FROM unnest(:names, :brands, :imageUrls, :ingredients, :descriptions, :categories, :applicationTimes,
+                :goalsMasks, :skinTypesMasks)
+                AS r(name, brand, image_url, ingredients, description, category, application_time,
+                    goals_mask, skin_types_mask)
+            ON CONFLICT (brand, name) DO UPDATE
+            SET image_url = EXCLUDED.image_url, ingredients = EXCLUDED.ingredients,
+                description = EXCLUDED.description, category = EXCLUDED.category,
+                application_time = EXCLUDED.application_time, goals_mask = EXCLUDED.goals_mask,
+                skin_types_mask = EXCLUDED.skin_types_mask, version = products.version + 1
+            RETURNING id, brand, name, (xmax = 0) AS inserted
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Ids de las filas escritas: las nuevas y las que ya existían
+    public record Upserted(List<Long> insertedIds, List<Long> updatedIds) {
+    }
+
+    public static String naturalKey(String brand, String name) {
+        return brand + '\u0000' + name;
+    }
+
+    // Asigna a cada producto su id. Las claves (marca, nombre) no pueden repetirse dentro de la
+    // lista; se escriben en orden de clave para que dos importaciones no se bloqueen mutuamente.
+    public Upserted upsertAll(Collection<Product> products) {
+        List<Product> sorted = products.stream()
+                .sorted(Comparator.comparing(Product::getBrand).thenComparing(Product::getName))
+                .toList();
+        List<Long> insertedIds = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        if (sorted.isEmpty()) {
+            return new Upserted(insertedIds, updatedIds);
+        }
+        Map<String, Product> byKey = new HashMap<>();
+        sorted.forEach(product -> byKey.put(naturalKey(product.getBrand(), product.getName()), product));
+
+        jdbc.query(UPSERT_SQL, parameters(sorted), rs -> {
+            long id = rs.getLong("id");
+            byKey.get(naturalKey(rs.getString("brand"), rs.getString("name"))).setId(id);
+            (rs.getBoolean("inserted") ? insertedIds : updatedIds).add(id);
+        });
+        return new Upserted(insertedIds, updatedIds);
+    }
+
+    // Las escrituras por JDBC no pasan por Hibernate: hay que sacar de la caché de segundo nivel
+    // las filas modificadas. Se llama después del commit.
+    public void evictFromCache(Collection<Long> ids) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long id : ids) {
+            cache.evictEntityData(Product.class, id);
+        }
+    }
+
+    private static MapSqlParameterSource parameters(List<Product> products) {
+        return new MapSqlParameterSource()
+                .addValue("names", column(products, Product::getName))
+                .addValue("brands", column(products, Product::getBrand))
+                .addValue("imageUrls", column(products, Product::getImageUrl))
+                .addValue("ingredients", column(products, Product::getIngredients))
+                .addValue("descriptions", column(products, Product::getDescription))
+                .addValue("categories", column(products, product -> product.getCategory().name()))
+                .addValue("applicationTimes", column(products, product -> product.getApplicationTime().name()))
+                .addValue("goalsMasks", products.stream()
+                        .map(product -> EnumMask.of(product.getGoals())).toArray(Integer[]::new))
+                .addValue("skinTypesMasks", products.stream()
+                        .map(product -> EnumMask.of(product.getSkinTypes())).toArray(Integer[]::new));
+    }
+
+    private static String[] column(List<Product> products, Function<Product, String> value) {
+        return products.stream().map(value).toArray(String[]::new);
+    }
+}
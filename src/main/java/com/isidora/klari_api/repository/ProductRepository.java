@@ -1,31 +1,33 @@
 package com.isidora.klari_api.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.VersionedProductSummaryDTO;
 import com.isidora.klari_api.model.Product;
-import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
-import com.isidora.klari_api.model.enums.SkinType;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
         Page<Product> findByCategory(ProductCategory category, Pageable pageable);
 
         Page<Product> findByApplicationTime(ProductApplicationTime applicationTime, Pageable pageable);
 
-        Page<Product> findByBrandIgnoreCase(String brand, Pageable pageable);
+        // LOWER explícito para que coincida con el índice products_lower_brand_id_idx
+        @Query("SELECT p FROM Product p WHERE LOWER(p.brand) = LOWER(:brand)")
+        Page<Product> findByBrandIgnoreCase(@Param("brand") String brand, Pageable pageable);
 
         Page<Product> findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase(
                         String name, String brand, Pageable pageable);
@@ -58,15 +60,26 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         @Param("category") ProductCategory category,
                         Pageable pageable);
 
+        @Query("""
+                        SELECT new com.isidora.klari_api.dto.VersionedProductSummaryDTO(
+                            p.id, p.name, p.brand, p.imageUrl, p.category, p.version
+                        )
+                        FROM Product p
+                        WHERE p.id = :id
+                        """)
+        Optional<VersionedProductSummaryDTO> findSummaryById(@Param("id") Long id);
+
         @Query("""
                         SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
                             p.id, p.name, p.brand, p.imageUrl, p.category
                         )
                         FROM Product p
-                        WHERE p.id = :id
+                        WHERE p.id IN :ids
                         """)
-        Optional<ProductSummaryDTO> findSummaryById(@Param("id") Long id);
+        List<ProductSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
+        // Tipo de piel y metas se comparan contra las máscaras de bits de EnumMask; el cast
+        // le da tipo al parámetro dentro de bitand (H2 no lo infiere)
         @Query("""
                         SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
                             p.id, p.name, p.brand, p.imageUrl, p.category
@@ -74,14 +87,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         FROM Product p
                         WHERE p.category = :category
                         AND (p.applicationTime = :time OR p.applicationTime = com.isidora.klari_api.model.enums.ProductApplicationTime.AMBOS)
-                        AND :skinType MEMBER OF p.skinTypes
-                        AND EXISTS (SELECT g FROM p.goals g WHERE g IN :goals)
+                        AND bitand(p.skinTypes, cast(:skinTypeMask as Integer)) <> 0
+                        AND bitand(p.goals, cast(:goalMask as Integer)) <> 0
                         """)
         Page<ProductSummaryDTO> findRecommendationsFull(
                         @Param("category") ProductCategory category,
                         @Param("time") ProductApplicationTime time,
-                        @Param("skinType") SkinType skinType,
-                        @Param("goals") Set<Goal> goals,
+                        @Param("skinTypeMask") int skinTypeMask,
+                        @Param("goalMask") int goalMask,
                         Pageable pageable);
 
         @Query("""
@@ -91,12 +104,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         FROM Product p
                         WHERE p.category = :category
                         AND (p.applicationTime = :time OR p.applicationTime = com.isidora.klari_api.model.enums.ProductApplicationTime.AMBOS)
-                        AND :skinType MEMBER OF p.skinTypes
+                        AND bitand(p.skinTypes, cast(:skinTypeMask as Integer)) <> 0
                         """)
         Page<ProductSummaryDTO> findRecommendationsBySkinType(
                         @Param("category") ProductCategory category,
                         @Param("time") ProductApplicationTime time,
-                        @Param("skinType") SkinType skinType,
+                        @Param("skinTypeMask") int skinTypeMask,
                         Pageable pageable);
 
         @Query("""
@@ -106,12 +119,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         FROM Product p
                         WHERE p.category = :category
                         AND (p.applicationTime = :time OR p.applicationTime = com.isidora.klari_api.model.enums.ProductApplicationTime.AMBOS)
-                        AND EXISTS (SELECT g FROM p.goals g WHERE g IN :goals)
+                        AND bitand(p.goals, cast(:goalMask as Integer)) <> 0
                         """)
         Page<ProductSummaryDTO> findRecommendationsByGoals(
                         @Param("category") ProductCategory category,
                         @Param("time") ProductApplicationTime time,
-                        @Param("goals") Set<Goal> goals,
+                        @Param("goalMask") int goalMask,
                         Pageable pageable);
 
         @Query("""
@@ -127,7 +140,82 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         @Param("time") ProductApplicationTime time,
                         Pageable pageable);
 
+        // Paginación por cursor (sin COUNT): se piden size + 1 filas desde la posición dada
+        @Query("""
+                        SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                            p.id, p.name, p.brand, p.imageUrl, p.category
+                        )
+                        FROM Product p
+                        WHERE p.id > :afterId
+                        ORDER BY p.id
+                        """)
+        List<ProductSummaryDTO> findSummaryAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+        @Query("""
+                        SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                            p.id, p.name, p.brand, p.imageUrl, p.category
+                        )
+                        FROM Product p
+                        WHERE (p.name, p.id) > (:afterName, :afterId)
+                        ORDER BY p.name, p.id
+                        """)
+        List<ProductSummaryDTO> findSummaryAfterName(
+                        @Param("afterName") String afterName,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        @Query("""
+                        SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                            p.id, p.name, p.brand, p.imageUrl, p.category
+                        )
+                        FROM Product p
+                        WHERE p.category = :category AND p.id > :afterId
+                        ORDER BY p.id
+                        """)
+        List<ProductSummaryDTO> findSummaryByCategoryAfterId(
+                        @Param("category") ProductCategory category,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        @Query("""
+                        SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                            p.id, p.name, p.brand, p.imageUrl, p.category
+                        )
+                        FROM Product p
+                        WHERE p.category = :category AND (p.name, p.id) > (:afterName, :afterId)
+                        ORDER BY p.name, p.id
+                        """)
+        List<ProductSummaryDTO> findSummaryByCategoryAfterName(
+                        @Param("category") ProductCategory category,
+                        @Param("afterName") String afterName,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
         List<Product> findByCategory(ProductCategory category);
 
+        @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+        Optional<Long> findVersionById(@Param("id") Long id);
+
         List<Product> findByBrand(String brand);
+
+        // Carga de los índices en memoria
+        @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+        List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+        // Migración de imágenes embebidas como data URI al almacén de imágenes
+        @Query("SELECT p.id FROM Product p WHERE p.imageUrl LIKE 'data:%' AND p.id > :afterId ORDER BY p.id")
+        List<Long> findIdsWithDataUriImageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+        @Query("SELECT p.imageUrl FROM Product p WHERE p.id = :id")
+        Optional<String> findImageUrlById(@Param("id") Long id);
+
+        @Modifying
+        @Query("""
+                        UPDATE Product p SET p.imageUrl = :imageUrl, p.version = p.version + 1
+                        WHERE p.id = :id AND p.imageUrl = :previous
+                        """)
+        int replaceImageUrl(
+                        @Param("id") Long id,
+                        @Param("previous") String previous,
+                        @Param("imageUrl") String imageUrl);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.isidora.klari_api.repository;
+
+import java.util.Optional;
+
+import com.isidora.klari_api.model.Product;
+
+public interface ProductRepositoryCustom {
+
+    // Búsqueda por la clave natural (marca, nombre); pasa por la caché de segundo nivel
+    Optional<Product> findByNaturalId(String brand, String name);
+}
@@ -0,0 +1,25 @@
+package com.isidora.klari_api.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+
+import com.isidora.klari_api.model.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Product> findByNaturalId(String brand, String name) {
+        return entityManager.unwrap(Session.class)
+                .byNaturalId(Product.class)
+                .using("brand", brand)
+                .using("name", name)
+                .loadOptional();
+    }
+}
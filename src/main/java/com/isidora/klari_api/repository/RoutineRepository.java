@@ -1,13 +1,17 @@
 package com.isidora.klari_api.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.RoutineType;
 
 @Repository
@@ -27,4 +31,41 @@ public interface RoutineRepository extends JpaRepository<Routine, Long> {
             "AND r.user.id = :userId")
     List<Routine> findInactiveRoutines(RoutineType routineType, Long userId);
 
+    boolean existsByUserIdAndRoutineTypeAndActiveTrue(Long userId, RoutineType routineType);
+
+    // Desactiva la rutina activa del tipo (salvo la indicada) antes de activar otra
+    @Modifying
+    @Query("""
+            UPDATE Routine r SET r.active = false, r.version = r.version + 1
+            WHERE r.user.id = :userId AND r.routineType = :routineType AND r.active = true AND r.id <> :keepId
+            """)
+    int deactivateOthers(
+            @Param("userId") Long userId,
+            @Param("routineType") RoutineType routineType,
+            @Param("keepId") Long keepId);
+
+    // Pasos de varias rutinas en una sola consulta, solo con los campos del resumen de producto
+    interface StepView {
+        Long getRoutineId();
+
+        Long getId();
+
+        String getName();
+
+        String getBrand();
+
+        String getImageUrl();
+
+        ProductCategory getCategory();
+    }
+
+    @Query("""
+            SELECT r.id AS routineId, p.id AS id, p.name AS name, p.brand AS brand,
+                   p.imageUrl AS imageUrl, p.category AS category
+            FROM Routine r
+            JOIN r.products p
+            WHERE r.id IN :routineIds
+            """)
+    List<StepView> findStepsByRoutineIdIn(@Param("routineIds") Collection<Long> routineIds);
+
 }
\ No newline at end of file
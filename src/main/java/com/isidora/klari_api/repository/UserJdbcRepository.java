@@ -0,0 +1,101 @@
+package com.isidora.klari_api.repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cambios masivos en favoritos e inventario con JDBC: altas y bajas de muchos
+ * productos en una sola sentencia (PostgreSQL, con arreglos y CTE que modifican
+ * datos). Quien llama debe abrir la transacción.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserJdbcRepository {
+
+    public enum Membership {
+        FAVORITES("user_favorites"),
+        INVENTORY("user_inventory");
+
+        private final String table;
+
+        Membership(String table) {
+            this.table = table;
+        }
+    }
+
+    // added y removed son las filas que cambiaron; found, los ids a agregar que existen en products
+    public record MembershipChanges(Set<Long> added, Set<Long> removed, Set<Long> found) {
+    }
+
+    // Solo se insertan productos existentes, así que la clave foránea no corta el lote
+    private static final String APPLY_SQL = """
+            WITH added AS (
+                INSERT INTO %1$s (user_id, product_id)
+                SELECT :userId, p.id FROM products p WHERE p.id = ANY(:add)
+                ON CONFLICT DO NOTHING
+                RETURNING product_id
+            ), removed AS (
+                DELETE FROM %1$s WHERE user_id = :userId AND product_id = ANY(:remove)
+                RETURNING product_id
+            )
+            SELECT 'A' AS kind, product_id FROM added
+            UNION ALL
+            SELECT 'R', product_id FROM removed
+            UNION ALL
+            SELECT 'F', id FROM products WHERE id = ANY(:add)
+            """;
+
+    // Ids ordenados de favoritos e inventario de un usuario
+    public record MembershipIds(long[] favorites, long[] inventory) {
+    }
+
+    private static final String IDS_SQL = """
+            SELECT 'F' AS kind, product_id FROM user_favorites WHERE user_id = :userId
+            UNION ALL
+            SELECT 'I', product_id FROM user_inventory WHERE user_id = :userId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public MembershipChanges apply(Membership membership, Long userId, Collection<Long> add,
+            Collection<Long> remove) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("add", add.toArray(Long[]::new))
+                .addValue("remove", remove.toArray(Long[]::new));
+        Set<Long> added = new HashSet<>();
+        Set<Long> removed = new HashSet<>();
+        Set<Long> found = new HashSet<>();
+        jdbc.query(APPLY_SQL.formatted(membership.table), parameters, rs -> {
+            long productId = rs.getLong("product_id");
+            switch (rs.getString("kind")) {
+                case "A" -> added.add(productId);
+                case "R" -> removed.add(productId);
+                default -> found.add(productId);
+            }
+        });
+        return new MembershipChanges(added, removed, found);
+    }
+
+    public MembershipIds findMembershipIds(Long userId) {
+        LongStream.Builder favorites = LongStream.builder();
+        LongStream.Builder inventory = LongStream.builder();
+        jdbc.query(IDS_SQL, new MapSqlParameterSource("userId", userId), rs -> {
+            long productId = rs.getLong("product_id");
+            if (rs.getString("kind").equals("F")) {
+                favorites.add(productId);
+            } else {
+                inventory.add(productId);
+            }
+        });
+        return new MembershipIds(favorites.build().sorted().toArray(), inventory.build().sorted().toArray());
+    }
+}
@@ -5,14 +5,20 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.isidora.klari_api.dto.ProductSummaryDTO;
 import com.isidora.klari_api.model.User;
 import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -21,6 +27,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.goals WHERE u.id = :id")
+    Optional<User> findWithGoalsById(@Param("id") Long id);
+
+    // Perfil sin la entidad completa (ni la contraseña); las metas llegan unidas por comas
+    interface ProfileView {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        SkinType getSkinType();
+
+        String getGoals();
+    }
+
+    @Query("""
+            SELECT u.id AS id, u.username AS username, u.email AS email, u.skinType AS skinType,
+                   listagg(cast(g AS String), ',') AS goals
+            FROM User u
+            LEFT JOIN u.goals g
+            WHERE u.id = :id
+            GROUP BY u.id, u.username, u.email, u.skinType
+            """)
+    Optional<ProfileView> findProfileById(@Param("id") Long id);
+
     // FAVORITOS - Paginado
     @Query("""
             SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
@@ -71,21 +103,95 @@ public interface UserRepository extends JpaRepository<User, Long> {
             @Param("category") ProductCategory category,
             Pageable pageable);
 
-    // Verificar si existe en favoritos
+    // FAVORITOS / INVENTARIO - Por cursor, del más reciente al más antiguo (sin COUNT)
     @Query("""
-            SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END
+            SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                p.id, p.name, p.brand, p.imageUrl, p.category
+            )
             FROM User u
             JOIN u.favorites p
-            WHERE u.id = :userId AND p.id = :productId
+            WHERE u.id = :userId AND p.id < :beforeId
+            ORDER BY p.id DESC
             """)
-    boolean existsFavorite(@Param("userId") Long userId, @Param("productId") Long productId);
+    List<ProductSummaryDTO> findFavoriteSummariesBefore(
+            @Param("userId") Long userId,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
 
-    // Verificar si existe en inventario
     @Query("""
-            SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END
+            SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                p.id, p.name, p.brand, p.imageUrl, p.category
+            )
+            FROM User u
+            JOIN u.favorites p
+            WHERE u.id = :userId AND p.category = :category AND p.id < :beforeId
+            ORDER BY p.id DESC
+            """)
+    List<ProductSummaryDTO> findFavoriteSummariesByCategoryBefore(
+            @Param("userId") Long userId,
+            @Param("category") ProductCategory category,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    @Query("""
+            SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                p.id, p.name, p.brand, p.imageUrl, p.category
+            )
             FROM User u
             JOIN u.inventory p
-            WHERE u.id = :userId AND p.id = :productId
+            WHERE u.id = :userId AND p.id < :beforeId
+            ORDER BY p.id DESC
             """)
-    boolean existsInInventory(@Param("userId") Long userId, @Param("productId") Long productId);
-}
\ No newline at end of file
+    List<ProductSummaryDTO> findInventorySummariesBefore(
+            @Param("userId") Long userId,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    @Query("""
+            SELECT new com.isidora.klari_api.dto.ProductSummaryDTO(
+                p.id, p.name, p.brand, p.imageUrl, p.category
+            )
+            FROM User u
+            JOIN u.inventory p
+            WHERE u.id = :userId AND p.category = :category AND p.id < :beforeId
+            ORDER BY p.id DESC
+            """)
+    List<ProductSummaryDTO> findInventorySummariesByCategoryBefore(
+            @Param("userId") Long userId,
+            @Param("category") ProductCategory category,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    // FAVORITOS / INVENTARIO - Escritura directa en la tabla de unión, sin cargar la colección.
+    // La clave primaria descarta duplicados y la foránea rechaza productos inexistentes.
+    // Los query spaces limitan la invalidación de la caché de segundo nivel a la tabla tocada.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_favorites"))
+    @Query(value = """
+            INSERT INTO user_favorites (user_id, product_id)
+            VALUES (:userId, :productId)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertFavorite(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_favorites"))
+    @Query(value = "DELETE FROM user_favorites WHERE user_id = :userId AND product_id = :productId",
+            nativeQuery = true)
+    int deleteFavorite(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_inventory"))
+    @Query(value = """
+            INSERT INTO user_inventory (user_id, product_id)
+            VALUES (:userId, :productId)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertInventory(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_inventory"))
+    @Query(value = "DELETE FROM user_inventory WHERE user_id = :userId AND product_id = :productId",
+            nativeQuery = true)
+    int deleteInventory(@Param("userId") Long userId, @Param("productId") Long productId);
+}
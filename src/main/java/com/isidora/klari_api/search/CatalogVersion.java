@@ -0,0 +1,24 @@
+package com.isidora.klari_api.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Contador que cambia con cada escritura del catálogo. {@link ProductIndexer}
+ * lo incrementa cuando los índices ya reflejan el cambio, así que cualquier
+ * respuesta calculada con el valor anterior puede descartarse.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    long increment() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,48 @@
+package com.isidora.klari_api.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Convierte la lista INCI libre de un producto en nombres de ingrediente
+ * normalizados. "Parfum (Fragrance)" produce tanto "parfum" como "fragrance".
+ */
+public final class IngredientParser {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[,;\\n\\r•·|]+");
+    private static final Pattern ALIAS = Pattern.compile("\\(([^)]*)\\)");
+    private static final Pattern NOISE = Pattern.compile("[^a-z0-9 \\-]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private IngredientParser() {
+    }
+
+    public static Set<String> parse(String ingredients) {
+        Set<String> names = new LinkedHashSet<>();
+        if (ingredients == null || ingredients.isBlank()) {
+            return names;
+        }
+        for (String part : SEPARATORS.split(TextNormalizer.fold(ingredients))) {
+            Matcher alias = ALIAS.matcher(part);
+            while (alias.find()) {
+                add(names, alias.group(1));
+            }
+            add(names, ALIAS.matcher(part).replaceAll(" "));
+        }
+        return names;
+    }
+
+    public static String normalize(String ingredient) {
+        String cleaned = NOISE.matcher(TextNormalizer.fold(ingredient)).replaceAll(" ");
+        return SPACES.matcher(cleaned).replaceAll(" ").trim();
+    }
+
+    private static void add(Set<String> names, String raw) {
+        String name = normalize(raw);
+        if (!name.isEmpty()) {
+            names.add(name);
+        }
+    }
+}
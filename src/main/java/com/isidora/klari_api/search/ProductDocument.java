@@ -0,0 +1,52 @@
+package com.isidora.klari_api.search;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+/**
+ * Copia inmutable de los campos indexables de un producto, desacoplada de la
+ * sesión de Hibernate.
+ */
+public record ProductDocument(
+        Long id,
+        String name,
+        String brand,
+        String imageUrl,
+        String ingredients,
+        ProductCategory category,
+        ProductApplicationTime applicationTime,
+        Set<Goal> goals,
+        Set<SkinType> skinTypes) {
+
+    public static ProductDocument of(Product product) {
+        return new ProductDocument(
+                product.getId(),
+                product.getName(),
+                product.getBrand(),
+                product.getImageUrl(),
+                product.getIngredients(),
+                product.getCategory(),
+                product.getApplicationTime(),
+                copy(product.getGoals(), Goal.class),
+                copy(product.getSkinTypes(), SkinType.class));
+    }
+
+    public ProductSummaryDTO toSummary() {
+        return new ProductSummaryDTO(id, name, brand, imageUrl, category);
+    }
+
+    private static <E extends Enum<E>> Set<E> copy(Set<E> values, Class<E> type) {
+        EnumSet<E> copy = EnumSet.noneOf(type);
+        if (values != null) {
+            copy.addAll(values);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,36 @@
+package com.isidora.klari_api.search;
+
+import java.util.Set;
+
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+public record ProductFilter(
+        ProductCategory category,
+        ProductApplicationTime applicationTime,
+        SkinType skinType,
+        Set<Goal> goals,
+        Set<String> includeIngredients,
+        Set<String> excludeIngredients) {
+
+    public ProductFilter {
+        goals = goals == null ? Set.of() : Set.copyOf(goals);
+        includeIngredients = includeIngredients == null ? Set.of() : Set.copyOf(includeIngredients);
+        excludeIngredients = excludeIngredients == null ? Set.of() : Set.copyOf(excludeIngredients);
+    }
+
+    public static ProductFilter byCategory(ProductCategory category) {
+        return new ProductFilter(category, null, null, null, null, null);
+    }
+
+    // Filtros que solo resuelve el índice en memoria
+    public boolean hasAttributeFilters() {
+        return applicationTime != null
+                || skinType != null
+                || !goals.isEmpty()
+                || !includeIngredients.isEmpty()
+                || !excludeIngredients.isEmpty();
+    }
+}
@@ -0,0 +1,529 @@
+package com.isidora.klari_api.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ProductFacetsDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+/**
+ * Índice de filtros por atributos. Cada producto recibe un ordinal denso y
+ * cada valor de enum o ingrediente del diccionario tiene un bitmap con los
+ * ordinales que lo contienen, de modo que los filtros se evalúan como
+ * intersecciones y diferencias de bitmaps. Los términos de ingredientes se
+ * resuelven con un diccionario de palabras, sin recorrer todos los nombres.
+ *
+ * <p>Los ordinales siguen el orden de los ids: un producto nuevo se agrega al
+ * final y los ordinales borrados no se reutilizan, así que las páginas se leen
+ * recorriendo el bitmap del resultado desde el cursor. Un alta con id menor que
+ * el último, o demasiados ordinales libres, renumeran el snapshot antes de
+ * publicarlo. Los ids de ingrediente que quedan libres sí se reutilizan.
+ */
+@Component
+public class ProductFilterIndex implements ProductIndex {
+
+    private static final int MIN_FREED_TO_COMPACT = 1024;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    @Override
+    public boolean isReady() {
+        return snapshot.ready;
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<ProductDocument> documents) {
+        Snapshot next = Snapshot.empty();
+        documents.stream()
+                .sorted((a, b) -> Long.compare(a.id(), b.id()))
+                .forEach(next::upsert);
+        next.ready = true;
+        snapshot = next;
+    }
+
+    @Override
+    public synchronized void upsertAll(Collection<ProductDocument> documents) {
+        Snapshot next = snapshot.copy();
+        documents.forEach(next::upsert);
+        snapshot = next.compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Long> ids) {
+        Snapshot next = snapshot.copy();
+        ids.forEach(next::remove);
+        snapshot = next.compactIfNeeded();
+    }
+
+    public Page<ProductSummaryDTO> search(ProductFilter filter, Pageable pageable) {
+        Snapshot current = snapshot;
+        BitSet matches = current.evaluate(filter);
+        int total = matches.cardinality();
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(current.summaries(matches, matches.nextSetBit(0), total), pageable, total);
+        }
+        int ordinal = matches.nextSetBit(0);
+        for (long skipped = 0; skipped < pageable.getOffset() && ordinal >= 0; skipped++) {
+            ordinal = matches.nextSetBit(ordinal + 1);
+        }
+        return new PageImpl<>(current.summaries(matches, ordinal, pageable.getPageSize()), pageable, total);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scroll(ProductFilter filter, Cursor after, int size) {
+        Snapshot current = snapshot;
+        BitSet matches = current.evaluate(filter);
+        int from = after != null ? current.firstOrdinalAfter(after.id()) : 0;
+        return CursorPageDTO.of(current.summaries(matches, matches.nextSetBit(from), size + 1), size,
+                summary -> Cursor.of(summary.getId()));
+    }
+
+    public LongPredicate matcher(ProductFilter filter) {
+        Snapshot current = snapshot;
+        BitSet matches = current.evaluate(filter);
+        return id -> {
+            Integer ordinal = current.ordinals.get(id);
+            return ordinal != null && matches.get(ordinal);
+        };
+    }
+
+    // Conteos disyuntivos: cada faceta se cuenta con todos los filtros salvo el suyo.
+    // restrictTo son los ids de una búsqueda por texto; null cuenta sobre todo el catálogo.
+    public ProductFacetsDTO facets(ProductFilter filter, Collection<Long> restrictTo) {
+        Snapshot current = snapshot;
+        BitSet base = current.base(filter);
+        if (restrictTo != null) {
+            BitSet matched = new BitSet();
+            for (Long id : restrictTo) {
+                Integer ordinal = current.ordinals.get(id);
+                if (ordinal != null) {
+                    matched.set(ordinal);
+                }
+            }
+            base.and(matched);
+        }
+
+        BitSet category = filter.category() != null ? current.categories[filter.category().ordinal()] : null;
+        BitSet time = filter.applicationTime() != null
+                ? current.applicationTimes[filter.applicationTime().ordinal()]
+                : null;
+        BitSet skinType = filter.skinType() != null ? current.skinTypes[filter.skinType().ordinal()] : null;
+        BitSet goals = filter.goals().isEmpty() ? null : current.anyGoal(filter.goals());
+
+        return new ProductFacetsDTO(
+                intersect(base, category, time, skinType, goals).cardinality(),
+                counts(ProductCategory.class, current.categories, intersect(base, time, skinType, goals)),
+                counts(ProductApplicationTime.class, current.applicationTimes,
+                        intersect(base, category, skinType, goals)),
+                counts(SkinType.class, current.skinTypes, intersect(base, category, time, goals)),
+                counts(Goal.class, current.goals, intersect(base, category, time, skinType)));
+    }
+
+    private static BitSet intersect(BitSet base, BitSet... restrictions) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet restriction : restrictions) {
+            if (restriction != null) {
+                result.and(restriction);
+            }
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> counts(Class<E> type, BitSet[] bitmaps, BitSet scope) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        BitSet intersection = new BitSet();
+        for (E value : type.getEnumConstants()) {
+            intersection.clear();
+            intersection.or(scope);
+            intersection.and(bitmaps[value.ordinal()]);
+            counts.put(value, (long) intersection.cardinality());
+        }
+        return counts;
+    }
+
+    private record Row(
+            ProductSummaryDTO summary,
+            ProductCategory category,
+            ProductApplicationTime applicationTime,
+            Collection<SkinType> skinTypes,
+            Collection<Goal> goals,
+            int[] ingredients) {
+    }
+
+    private static final class Snapshot {
+
+        boolean ready;
+        Map<Long, Integer> ordinals;
+        Row[] rows;
+        // Id de cada ordinal asignado, también de los borrados: creciente mientras no haga falta renumerar
+        long[] ids;
+        int size;
+        int freed;
+        boolean unordered;
+        BitSet live;
+        BitSet[] categories;
+        BitSet[] applicationTimes;
+        BitSet[] skinTypes;
+        BitSet[] goals;
+        Map<String, Integer> dictionary;
+        // Nombres rodeados de espacios para buscar palabras completas; null si el id está libre
+        List<String> ingredientNames;
+        BitSet freeIngredients;
+        // Palabra -> ids de ingrediente ordenados que la contienen; los arreglos no se modifican
+        Map<String, int[]> words;
+        Map<Integer, BitSet> ingredients;
+        Set<Integer> ownedIngredients = new HashSet<>();
+
+        static Snapshot empty() {
+            Snapshot snapshot = new Snapshot();
+            snapshot.ordinals = new HashMap<>();
+            snapshot.rows = new Row[16];
+            snapshot.ids = new long[16];
+            snapshot.live = new BitSet();
+            snapshot.categories = bitmaps(ProductCategory.values().length);
+            snapshot.applicationTimes = bitmaps(ProductApplicationTime.values().length);
+            snapshot.skinTypes = bitmaps(SkinType.values().length);
+            snapshot.goals = bitmaps(Goal.values().length);
+            snapshot.dictionary = new HashMap<>();
+            snapshot.ingredientNames = new ArrayList<>();
+            snapshot.freeIngredients = new BitSet();
+            snapshot.words = new HashMap<>();
+            snapshot.ingredients = new HashMap<>();
+            return snapshot;
+        }
+
+        // Copia superficial: los bitmaps de ingredientes se clonan solo al modificarse
+        Snapshot copy() {
+            Snapshot copy = new Snapshot();
+            copy.ready = ready;
+            copy.ordinals = new HashMap<>(ordinals);
+            copy.rows = Arrays.copyOf(rows, rows.length);
+            copy.ids = Arrays.copyOf(ids, ids.length);
+            copy.size = size;
+            copy.freed = freed;
+            copy.live = (BitSet) live.clone();
+            copy.categories = clone(categories);
+            copy.applicationTimes = clone(applicationTimes);
+            copy.skinTypes = clone(skinTypes);
+            copy.goals = clone(goals);
+            copy.dictionary = new HashMap<>(dictionary);
+            copy.ingredientNames = new ArrayList<>(ingredientNames);
+            copy.freeIngredients = (BitSet) freeIngredients.clone();
+            copy.words = new HashMap<>(words);
+            copy.ingredients = new HashMap<>(ingredients);
+            return copy;
+        }
+
+        // Un producto nuevo va al final; si su id no es el mayor, el snapshot se renumera antes de publicarse
+        void upsert(ProductDocument document) {
+            Integer existing = ordinals.get(document.id());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                clear(ordinal);
+            } else {
+                ordinal = size++;
+                if (ordinal == rows.length) {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                unordered |= ordinal > 0 && ids[ordinal - 1] > document.id();
+                ids[ordinal] = document.id();
+                ordinals.put(document.id(), ordinal);
+            }
+
+            int[] ingredientIds = IngredientParser.parse(document.ingredients()).stream()
+                    .mapToInt(this::ingredientId)
+                    .toArray();
+            Row row = new Row(document.toSummary(), document.category(), document.applicationTime(),
+                    document.skinTypes(), document.goals(), ingredientIds);
+            rows[ordinal] = row;
+
+            live.set(ordinal);
+            if (row.category() != null) {
+                categories[row.category().ordinal()].set(ordinal);
+            }
+            if (row.applicationTime() != null) {
+                applicationTimes[row.applicationTime().ordinal()].set(ordinal);
+            }
+            row.skinTypes().forEach(skinType -> skinTypes[skinType.ordinal()].set(ordinal));
+            row.goals().forEach(goal -> goals[goal.ordinal()].set(ordinal));
+            for (int ingredient : ingredientIds) {
+                editable(ingredient).set(ordinal);
+            }
+        }
+
+        void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                clear(ordinal);
+                rows[ordinal] = null;
+                freed++;
+            }
+        }
+
+        Snapshot compactIfNeeded() {
+            return unordered || (freed >= MIN_FREED_TO_COMPACT && freed * 4L > size) ? compacted() : this;
+        }
+
+        // Ordinales densos en orden de id; los bitmaps se traducen sin volver a leer los ingredientes
+        private Snapshot compacted() {
+            int[] order = live.stream().boxed()
+                    .sorted((a, b) -> Long.compare(ids[a], ids[b]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int[] renumbered = new int[size];
+            Snapshot next = new Snapshot();
+            next.ready = ready;
+            next.ordinals = new HashMap<>(order.length * 2);
+            next.rows = new Row[Math.max(16, order.length)];
+            next.ids = new long[next.rows.length];
+            for (int i = 0; i < order.length; i++) {
+                renumbered[order[i]] = i;
+                next.rows[i] = rows[order[i]];
+                next.ids[i] = ids[order[i]];
+                next.ordinals.put(ids[order[i]], i);
+            }
+            next.size = order.length;
+            next.live = new BitSet();
+            next.live.set(0, order.length);
+            next.categories = renumber(categories, renumbered);
+            next.applicationTimes = renumber(applicationTimes, renumbered);
+            next.skinTypes = renumber(skinTypes, renumbered);
+            next.goals = renumber(goals, renumbered);
+            next.dictionary = dictionary;
+            next.ingredientNames = ingredientNames;
+            next.freeIngredients = freeIngredients;
+            next.words = words;
+            next.ingredients = new HashMap<>();
+            ingredients.forEach((ingredient, posting) -> next.ingredients.put(ingredient,
+                    renumber(posting, renumbered)));
+            return next;
+        }
+
+        // Primer ordinal cuyo id es mayor que el del cursor
+        int firstOrdinalAfter(long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] <= id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Hasta limit resúmenes recorriendo el bitmap desde el ordinal dado (negativo si no hay más)
+        List<ProductSummaryDTO> summaries(BitSet matches, int from, int limit) {
+            List<ProductSummaryDTO> summaries = new ArrayList<>(Math.min(limit, 64));
+            for (int ordinal = from; ordinal >= 0 && summaries.size() < limit;
+                    ordinal = matches.nextSetBit(ordinal + 1)) {
+                summaries.add(rows[ordinal].summary());
+            }
+            return summaries;
+        }
+
+        BitSet evaluate(ProductFilter filter) {
+            BitSet result = base(filter);
+            if (filter.category() != null) {
+                result.and(categories[filter.category().ordinal()]);
+            }
+            if (filter.applicationTime() != null) {
+                result.and(applicationTimes[filter.applicationTime().ordinal()]);
+            }
+            if (filter.skinType() != null) {
+                result.and(skinTypes[filter.skinType().ordinal()]);
+            }
+            if (!filter.goals().isEmpty()) {
+                result.and(anyGoal(filter.goals()));
+            }
+            return result;
+        }
+
+        // Productos vivos que cumplen los filtros de ingredientes, sin los de enums
+        BitSet base(ProductFilter filter) {
+            BitSet result = (BitSet) live.clone();
+            for (String term : filter.includeIngredients()) {
+                result.and(resolve(term));
+            }
+            for (String term : filter.excludeIngredients()) {
+                result.andNot(resolve(term));
+            }
+            return result;
+        }
+
+        BitSet anyGoal(Set<Goal> selected) {
+            BitSet any = new BitSet();
+            selected.forEach(goal -> any.or(goals[goal.ordinal()]));
+            return any;
+        }
+
+        // Un término coincide con los ingredientes que lo contienen como palabras completas y seguidas.
+        // Los candidatos salen de la palabra menos frecuente; la frase se verifica solo en ellos.
+        private BitSet resolve(String term) {
+            BitSet union = new BitSet();
+            String normalized = IngredientParser.normalize(term);
+            if (normalized.isEmpty()) {
+                return union;
+            }
+            String[] termWords = normalized.split(" ");
+            int[] candidates = null;
+            for (String word : termWords) {
+                int[] posting = words.get(word);
+                if (posting == null) {
+                    return union;
+                }
+                if (candidates == null || posting.length < candidates.length) {
+                    candidates = posting;
+                }
+            }
+            String needle = " " + normalized + " ";
+            for (int id : candidates) {
+                if (termWords.length == 1 || ingredientNames.get(id).contains(needle)) {
+                    union.or(ingredients.get(id));
+                }
+            }
+            return union;
+        }
+
+        private void clear(int ordinal) {
+            Row row = rows[ordinal];
+            live.clear(ordinal);
+            if (row == null) {
+                return;
+            }
+            if (row.category() != null) {
+                categories[row.category().ordinal()].clear(ordinal);
+            }
+            if (row.applicationTime() != null) {
+                applicationTimes[row.applicationTime().ordinal()].clear(ordinal);
+            }
+            row.skinTypes().forEach(skinType -> skinTypes[skinType.ordinal()].clear(ordinal));
+            row.goals().forEach(goal -> goals[goal.ordinal()].clear(ordinal));
+            for (int ingredient : row.ingredients()) {
+                BitSet posting = editable(ingredient);
+                posting.clear(ordinal);
+                if (posting.isEmpty()) {
+                    release(ingredient);
+                }
+            }
+        }
+
+        private int ingredientId(String name) {
+            Integer known = dictionary.get(name);
+            if (known != null) {
+                return known;
+            }
+            int id = freeIngredients.nextSetBit(0);
+            if (id >= 0) {
+                freeIngredients.clear(id);
+                ingredientNames.set(id, " " + name + " ");
+            } else {
+                id = ingredientNames.size();
+                ingredientNames.add(" " + name + " ");
+            }
+            dictionary.put(name, id);
+            for (String word : distinctWords(name)) {
+                int[] posting = words.getOrDefault(word, new int[0]);
+                int position = -Arrays.binarySearch(posting, id) - 1;
+                int[] next = new int[posting.length + 1];
+                System.arraycopy(posting, 0, next, 0, position);
+                next[position] = id;
+                System.arraycopy(posting, position, next, position + 1, posting.length - position);
+                words.put(word, next);
+            }
+            return id;
+        }
+
+        // Un ingrediente sin productos sale del diccionario y su id queda libre
+        private void release(int ingredient) {
+            String name = ingredientNames.get(ingredient);
+            name = name.substring(1, name.length() - 1);
+            dictionary.remove(name);
+            for (String word : distinctWords(name)) {
+                int[] posting = words.get(word);
+                int position = Arrays.binarySearch(posting, ingredient);
+                if (posting.length == 1) {
+                    words.remove(word);
+                } else {
+                    int[] next = new int[posting.length - 1];
+                    System.arraycopy(posting, 0, next, 0, position);
+                    System.arraycopy(posting, position + 1, next, position, next.length - position);
+                    words.put(word, next);
+                }
+            }
+            ingredients.remove(ingredient);
+            ownedIngredients.remove(ingredient);
+            ingredientNames.set(ingredient, null);
+            freeIngredients.set(ingredient);
+        }
+
+        private static Set<String> distinctWords(String name) {
+            return new HashSet<>(Arrays.asList(name.split(" ")));
+        }
+
+        private BitSet editable(int ingredient) {
+            BitSet posting = ingredients.get(ingredient);
+            if (posting != null && !ownedIngredients.add(ingredient)) {
+                return posting;
+            }
+            BitSet copy = posting == null ? new BitSet() : (BitSet) posting.clone();
+            ownedIngredients.add(ingredient);
+            ingredients.put(ingredient, copy);
+            return copy;
+        }
+
+        private static BitSet[] bitmaps(int count) {
+            BitSet[] bitmaps = new BitSet[count];
+            for (int i = 0; i < count; i++) {
+                bitmaps[i] = new BitSet();
+            }
+            return bitmaps;
+        }
+
+        private static BitSet[] renumber(BitSet[] bitmaps, int[] renumbered) {
+            BitSet[] copy = new BitSet[bitmaps.length];
+            for (int i = 0; i < bitmaps.length; i++) {
+                copy[i] = renumber(bitmaps[i], renumbered);
+            }
+            return copy;
+        }
+
+        private static BitSet renumber(BitSet bitmap, int[] renumbered) {
+            BitSet copy = new BitSet();
+            bitmap.stream().forEach(ordinal -> copy.set(renumbered[ordinal]));
+            return copy;
+        }
+
+        private static BitSet[] clone(BitSet[] bitmaps) {
+            BitSet[] copy = new BitSet[bitmaps.length];
+            for (int i = 0; i < bitmaps.length; i++) {
+                copy[i] = (BitSet) bitmaps[i].clone();
+            }
+            return copy;
+        }
+    }
+}
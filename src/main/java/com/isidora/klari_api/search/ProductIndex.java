@@ -0,0 +1,20 @@
+package com.isidora.klari_api.search;
+
+import java.util.Collection;
+
+/**
+ * Índice en memoria sobre el catálogo. Las escrituras se serializan entre sí
+ * y las lecturas nunca se bloquean mientras se reconstruye o actualiza el
+ * índice. Cada implementación documenta qué ve una lectura concurrente con
+ * una escritura.
+ */
+public interface ProductIndex {
+
+    void rebuild(Collection<ProductDocument> documents);
+
+    void upsertAll(Collection<ProductDocument> documents);
+
+    void removeAll(Collection<Long> ids);
+
+    boolean isReady();
+}
@@ -0,0 +1,121 @@
+package com.isidora.klari_api.search;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mantiene sincronizados todos los {@link ProductIndex} con la base de datos:
+ * los construye al arrancar y los actualiza con cada escritura del catálogo.
+ * Las escrituras que llegan mientras se lee el catálogo se anotan y se aplican
+ * sobre lo leído antes de publicar los índices, así la carga no las pisa.
+ */
+@Slf4j
+@Component
+public class ProductIndexer {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final List<ProductIndex> indexes;
+    private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Object lock = new Object();
+    // Última versión de cada producto escrito durante la carga (null si se borró); null fuera de ella
+    private Map<Long, ProductDocument> pending;
+
+    public ProductIndexer(List<ProductIndex> indexes, ProductRepository productRepository,
+            CatalogVersion catalogVersion, PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Corre dentro de ApplicationReadyEvent, antes de que la aplicación pase a ACCEPTING_TRAFFIC;
+    // mientras tanto cada índice responde isReady() == false
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        long start = System.nanoTime();
+        synchronized (lock) {
+            pending = new HashMap<>();
+        }
+        try {
+            Map<Long, ProductDocument> documents = loadDocuments();
+            synchronized (lock) {
+                pending.forEach((id, document) -> {
+                    if (document != null) {
+                        documents.put(id, document);
+                    } else {
+                        documents.remove(id);
+                    }
+                });
+                indexes.forEach(index -> index.rebuild(documents.values()));
+                catalogVersion.increment();
+                log.info("Índices de productos construidos: {} productos ({} escritos durante la carga) en {} ms",
+                        documents.size(), pending.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            synchronized (lock) {
+                pending = null;
+            }
+        }
+    }
+
+    public void indexed(Collection<Product> products) {
+        List<ProductDocument> documents = products.stream().map(ProductDocument::of).toList();
+        synchronized (lock) {
+            indexes.forEach(index -> index.upsertAll(documents));
+            if (pending != null) {
+                documents.forEach(document -> pending.put(document.id(), document));
+            }
+            catalogVersion.increment();
+        }
+    }
+
+    public void removed(Collection<Long> ids) {
+        synchronized (lock) {
+            indexes.forEach(index -> index.removeAll(ids));
+            if (pending != null) {
+                ids.forEach(id -> pending.put(id, null));
+            }
+            catalogVersion.increment();
+        }
+    }
+
+    private Map<Long, ProductDocument> loadDocuments() {
+        Map<Long, ProductDocument> documents = new HashMap<>();
+        long afterId = 0L;
+        while (true) {
+            long cursor = afterId;
+            List<ProductDocument> batch = readOnlyTransaction.execute(status -> {
+                List<Long> ids = productRepository.findIdsAfter(cursor, PageRequest.ofSize(LOAD_BATCH_SIZE));
+                if (ids.isEmpty()) {
+                    return List.<ProductDocument>of();
+                }
+                return productRepository.findAllById(ids).stream()
+                        .map(ProductDocument::of)
+                        .toList();
+            });
+            if (batch == null || batch.isEmpty()) {
+                return documents;
+            }
+            batch.forEach(document -> documents.put(document.id(), document));
+            afterId = batch.stream().mapToLong(ProductDocument::id).max().getAsLong();
+        }
+    }
+}
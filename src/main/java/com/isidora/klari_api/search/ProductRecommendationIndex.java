@@ -0,0 +1,285 @@
+package com.isidora.klari_api.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+/**
+ * Motor de recomendaciones en memoria. Los atributos de cada producto se
+ * guardan en arreglos columnares ordenados por (categoría, id), con tipos de
+ * piel y metas empaquetados en máscaras de bits. Un solo recorrido de la
+ * categoría clasifica cada producto en los mismos niveles que la cascada de
+ * consultas de {@code ProductService.findForRoutine}.
+ *
+ * <p>Cada escritura publica columnas nuevas sin reordenar el catálogo: un
+ * producto que conserva su categoría se reemplaza en su posición, y las altas,
+ * bajas y cambios de categoría se mezclan con las columnas actuales. Una
+ * lectura ve las columnas anteriores o las siguientes completas.
+ */
+@Component
+public class ProductRecommendationIndex implements ProductIndex {
+
+    private static final int FULL = 0;
+    private static final int SKIN_TYPE = 1;
+    private static final int GOALS = 2;
+    private static final int CATEGORY_AND_TIME = 3;
+    private static final int CATEGORY = 4;
+    private static final int TIERS = 5;
+
+    private static final Comparator<ProductDocument> COLUMN_ORDER = Comparator
+            .comparing((ProductDocument document) -> document.category().ordinal())
+            .thenComparing(ProductDocument::id);
+
+    private volatile Columns columns = Columns.EMPTY;
+
+    @Override
+    public boolean isReady() {
+        return columns.ready();
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<ProductDocument> documents) {
+        columns = Columns.EMPTY.apply(true, documents, List.of());
+    }
+
+    @Override
+    public synchronized void upsertAll(Collection<ProductDocument> documents) {
+        columns = columns.apply(columns.ready(), documents, List.of());
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Long> ids) {
+        columns = columns.apply(columns.ready(), List.of(), ids);
+    }
+
+    // Solo se puede ordenar por id, que es el orden físico de las columnas
+    public boolean supports(Sort sort) {
+        return sort.stream().allMatch(order -> order.getProperty().equals("id"));
+    }
+
+    public Page<ProductSummaryDTO> recommend(
+            ProductCategory category,
+            ProductApplicationTime time,
+            SkinType skinType,
+            Set<Goal> goals,
+            Pageable pageable) {
+
+        Columns current = columns;
+        int from = current.categoryStart()[category.ordinal()];
+        int to = current.categoryStart()[category.ordinal() + 1];
+        byte timeOrdinal = (byte) time.ordinal();
+        byte both = (byte) ProductApplicationTime.AMBOS.ordinal();
+        int skinTypeBit = EnumMask.of(skinType);
+        int goalMask = EnumMask.of(goals);
+
+        boolean descending = pageable.getSort().stream().anyMatch(Sort.Order::isDescending);
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged()
+                ? (int) Math.min(offset + pageable.getPageSize(), to - from)
+                : to - from;
+
+        int[] counts = new int[TIERS];
+        int[][] positions = new int[TIERS][limit];
+
+        for (int step = 0; step < to - from; step++) {
+            int i = descending ? to - 1 - step : from + step;
+            collect(CATEGORY, i, counts, positions);
+
+            byte productTime = current.times()[i];
+            if (productTime != timeOrdinal && productTime != both) {
+                continue;
+            }
+            collect(CATEGORY_AND_TIME, i, counts, positions);
+
+            boolean skinMatch = (current.skinTypeMasks()[i] & skinTypeBit) != 0;
+            boolean goalMatch = (current.goalMasks()[i] & goalMask) != 0;
+            if (skinMatch) {
+                collect(SKIN_TYPE, i, counts, positions);
+            }
+            if (goalMatch) {
+                collect(GOALS, i, counts, positions);
+            }
+            if (skinMatch && goalMatch) {
+                collect(FULL, i, counts, positions);
+            }
+        }
+
+        // Igual que la cascada: el primer nivel con contenido en esta página, no solo en la primera
+        int tier = CATEGORY;
+        for (int candidate = FULL; candidate < CATEGORY; candidate++) {
+            if (counts[candidate] > offset) {
+                tier = candidate;
+                break;
+            }
+        }
+
+        int found = Math.min(counts[tier], limit);
+        List<ProductSummaryDTO> content = new ArrayList<>();
+        for (long k = offset; k < found; k++) {
+            content.add(current.summaries()[positions[tier][(int) k]]);
+        }
+        return new PageImpl<>(content, pageable, counts[tier]);
+    }
+
+    private static void collect(int tier, int position, int[] counts, int[][] positions) {
+        if (counts[tier] < positions[tier].length) {
+            positions[tier][counts[tier]] = position;
+        }
+        counts[tier]++;
+    }
+
+    private record Columns(
+            boolean ready,
+            int[] categoryStart,
+            long[] ids,
+            byte[] times,
+            int[] skinTypeMasks,
+            int[] goalMasks,
+            ProductSummaryDTO[] summaries) {
+
+        static final Columns EMPTY = new Columns(false, new int[ProductCategory.values().length + 1], new long[0],
+                new byte[0], new int[0], new int[0], new ProductSummaryDTO[0]);
+
+        Columns apply(boolean ready, Collection<ProductDocument> upserts, Collection<Long> removedIds) {
+            // Gana la última versión de cada producto dentro de la escritura
+            Map<Long, ProductDocument> latest = new LinkedHashMap<>();
+            upserts.forEach(document -> latest.put(document.id(), document));
+
+            Map<Integer, ProductDocument> replaced = new LinkedHashMap<>();
+            BitSet dropped = new BitSet();
+            List<ProductDocument> added = new ArrayList<>();
+            for (ProductDocument document : latest.values()) {
+                int position = position(document.id());
+                if (position >= 0 && category(position) == document.category().ordinal()) {
+                    replaced.put(position, document);
+                } else {
+                    if (position >= 0) {
+                        dropped.set(position);
+                    }
+                    added.add(document);
+                }
+            }
+            for (Long id : removedIds) {
+                int position = position(id);
+                if (position >= 0) {
+                    dropped.set(position);
+                }
+            }
+
+            if (dropped.isEmpty() && added.isEmpty()) {
+                return replace(ready, replaced);
+            }
+            return merge(ready, replaced, dropped, added);
+        }
+
+        // Mismas posiciones: basta con copiar las columnas y escribir encima
+        private Columns replace(boolean ready, Map<Integer, ProductDocument> replaced) {
+            byte[] nextTimes = times.clone();
+            int[] nextSkinTypeMasks = skinTypeMasks.clone();
+            int[] nextGoalMasks = goalMasks.clone();
+            ProductSummaryDTO[] nextSummaries = summaries.clone();
+            replaced.forEach((position, document) -> {
+                nextTimes[position] = (byte) document.applicationTime().ordinal();
+                nextSkinTypeMasks[position] = EnumMask.of(document.skinTypes());
+                nextGoalMasks[position] = EnumMask.of(document.goals());
+                nextSummaries[position] = document.toSummary();
+            });
+            return new Columns(ready, categoryStart, ids, nextTimes, nextSkinTypeMasks, nextGoalMasks,
+                    nextSummaries);
+        }
+
+        // Solo se ordenan las altas; el resto ya está en orden y se recorre una vez
+        private Columns merge(boolean ready, Map<Integer, ProductDocument> replaced, BitSet dropped,
+                List<ProductDocument> added) {
+            added.sort(COLUMN_ORDER);
+            int size = ids.length - dropped.cardinality() + added.size();
+            int[] nextCategoryStart = new int[categoryStart.length];
+            long[] nextIds = new long[size];
+            byte[] nextTimes = new byte[size];
+            int[] nextSkinTypeMasks = new int[size];
+            int[] nextGoalMasks = new int[size];
+            ProductSummaryDTO[] nextSummaries = new ProductSummaryDTO[size];
+
+            int position = 0;
+            int category = 0;
+            int next = 0;
+            for (int target = 0; target < size; target++) {
+                position = dropped.nextClearBit(position);
+                while (position < ids.length && position >= categoryStart[category + 1]) {
+                    category++;
+                }
+                ProductDocument document = next < added.size() ? added.get(next) : null;
+                boolean takeAdded = document != null && (position >= ids.length
+                        || document.category().ordinal() < category
+                        || (document.category().ordinal() == category && document.id() < ids[position]));
+                if (takeAdded) {
+                    next++;
+                } else {
+                    document = replaced.get(position);
+                }
+
+                if (document != null) {
+                    nextCategoryStart[document.category().ordinal() + 1]++;
+                    nextIds[target] = document.id();
+                    nextTimes[target] = (byte) document.applicationTime().ordinal();
+                    nextSkinTypeMasks[target] = EnumMask.of(document.skinTypes());
+                    nextGoalMasks[target] = EnumMask.of(document.goals());
+                    nextSummaries[target] = document.toSummary();
+                } else {
+                    nextCategoryStart[category + 1]++;
+                    nextIds[target] = ids[position];
+                    nextTimes[target] = times[position];
+                    nextSkinTypeMasks[target] = skinTypeMasks[position];
+                    nextGoalMasks[target] = goalMasks[position];
+                    nextSummaries[target] = summaries[position];
+                }
+                if (!takeAdded) {
+                    position++;
+                }
+            }
+            for (int c = 1; c < nextCategoryStart.length; c++) {
+                nextCategoryStart[c] += nextCategoryStart[c - 1];
+            }
+            return new Columns(ready, nextCategoryStart, nextIds, nextTimes, nextSkinTypeMasks, nextGoalMasks,
+                    nextSummaries);
+        }
+
+        // Los ids están ordenados dentro de cada categoría: una búsqueda binaria por categoría
+        private int position(long id) {
+            for (int c = 0; c < categoryStart.length - 1; c++) {
+                int found = Arrays.binarySearch(ids, categoryStart[c], categoryStart[c + 1], id);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+            return -1;
+        }
+
+        private int category(int position) {
+            int c = 0;
+            while (position >= categoryStart[c + 1]) {
+                c++;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.isidora.klari_api.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+/**
+ * Índice invertido sobre nombre y marca. Los términos se normalizan sin
+ * tildes ni mayúsculas; cada consulta exige que todos sus tokens aparezcan
+ * (exactos o como prefijo) y ordena por relevancia.
+ *
+ * <p>Cada producto tiene un ordinal denso y las listas de cada término guardan
+ * ordinales ordenados. Una escritura reemplaza solo las listas de los términos
+ * que toca; los puntajes se acumulan en arreglos primitivos y de los aciertos
+ * se seleccionan los k primeros sin ordenar el resto.
+ *
+ * <p>Las escrituras modifican el estado publicado en su lugar, así que una
+ * consulta concurrente puede ver una escritura a medias: algunos términos ya
+ * actualizados y otros todavía no. Nunca ve un ordinal sin su documento, y un
+ * producto agregado después de empezar la consulta se ignora. Una
+ * reconstrucción o compactación publica un estado nuevo de una sola vez.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    private static final byte NAME = 1;
+    private static final byte BRAND = 2;
+    private static final float NAME_WEIGHT = 2f;
+    private static final float BRAND_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // Los ordinales de productos borrados no se reutilizan: al superar este mínimo y un
+    // cuarto de los asignados, el índice se reconstruye en memoria con ordinales nuevos
+    private static final int MIN_FREED_TO_COMPACT = 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private volatile State state = State.of(false, List.of());
+
+    @Override
+    public boolean isReady() {
+        return state.ready;
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<ProductDocument> documents) {
+        state = State.of(true, documents.stream().map(Doc::of).toList());
+    }
+
+    @Override
+    public synchronized void upsertAll(Collection<ProductDocument> documents) {
+        apply(documents, List.of());
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Long> ids) {
+        apply(List.of(), ids);
+    }
+
+    public Page<ProductSummaryDTO> search(String query, ProductCategory category, Pageable pageable) {
+        return search(query, category, null, pageable);
+    }
+
+    public Page<ProductSummaryDTO> search(String query, ProductCategory category, LongPredicate filter,
+            Pageable pageable) {
+        Hits hits = rank(state, query, category, filter);
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(hits.summaries(hits.top(hits.count(), null), 0), pageable, hits.count());
+        }
+        int from = (int) Math.min(pageable.getOffset(), hits.count());
+        int to = Math.min(from + pageable.getPageSize(), hits.count());
+        return new PageImpl<>(hits.summaries(hits.top(to, null), from), pageable, hits.count());
+    }
+
+    // El cursor guarda (relevancia, id) del último resultado entregado
+    public CursorPageDTO<ProductSummaryDTO> scroll(String query, ProductCategory category, LongPredicate filter,
+            Cursor after, int size) {
+        Hits hits = rank(state, query, category, filter);
+        List<Integer> window = new ArrayList<>(size + 1);
+        for (int hit : hits.top(size + 1, after)) {
+            window.add(hit);
+        }
+        return CursorPageDTO.of(window, size, hit -> Cursor.ofRelevance(hits.scores[hit], hits.id(hit)))
+                .map(hit -> hits.docs[hit].summary());
+    }
+
+    // Ids que contienen todos los términos de la consulta, sin ordenar
+    public Set<Long> matchingIds(String query) {
+        Hits hits = rank(state, query, null, null);
+        Set<Long> ids = new HashSet<>(hits.count() * 2);
+        for (int i = 0; i < hits.count(); i++) {
+            ids.add(hits.id(i));
+        }
+        return ids;
+    }
+
+    private static Hits rank(State current, String query, ProductCategory category, LongPredicate filter) {
+        Set<String> tokens = new LinkedHashSet<>(TextNormalizer.tokens(query));
+        if (tokens.isEmpty()) {
+            return Hits.NONE;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(current.docs.length);
+        BitSet candidates = null;
+        for (String token : tokens) {
+            current.match(token, scratch);
+            BitSet touched = scratch.touched;
+            if (candidates == null) {
+                candidates = (BitSet) touched.clone();
+                for (int ordinal = touched.nextSetBit(0); ordinal >= 0; ordinal = touched.nextSetBit(ordinal + 1)) {
+                    scratch.total[ordinal] = scratch.current[ordinal];
+                }
+            } else {
+                candidates.and(touched);
+                for (int ordinal = candidates.nextSetBit(0); ordinal >= 0;
+                        ordinal = candidates.nextSetBit(ordinal + 1)) {
+                    scratch.total[ordinal] += scratch.current[ordinal];
+                }
+            }
+            scratch.clearCurrent();
+            if (candidates.isEmpty()) {
+                return Hits.NONE;
+            }
+        }
+
+        // Los documentos se leen después de las listas: un ordinal visto en una lista ya tiene su documento
+        Doc[] docs = current.docs;
+        int count = candidates.cardinality();
+        Doc[] hitDocs = new Doc[count];
+        float[] hitScores = new float[count];
+        int size = 0;
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            Doc doc = ordinal < docs.length ? docs[ordinal] : null;
+            if (doc == null
+                    || (category != null && doc.category() != category)
+                    || (filter != null && !filter.test(doc.id()))) {
+                continue;
+            }
+            hitDocs[size] = doc;
+            hitScores[size] = scratch.total[ordinal];
+            size++;
+        }
+        return new Hits(hitDocs, hitScores, size);
+    }
+
+    private void apply(Collection<ProductDocument> upserts, Collection<Long> removedIds) {
+        State current = state;
+        Map<String, Set<Integer>> removals = new HashMap<>();
+        Map<String, NavigableMap<Integer, Byte>> additions = new HashMap<>();
+        List<Integer> freed = new ArrayList<>();
+
+        for (Long id : removedIds) {
+            Integer ordinal = current.ordinals.remove(id);
+            if (ordinal != null) {
+                current.docs[ordinal].terms().keySet().forEach(term -> removals
+                        .computeIfAbsent(term, t -> new HashSet<>()).add(ordinal));
+                freed.add(ordinal);
+            }
+        }
+        for (ProductDocument document : upserts) {
+            Doc doc = Doc.of(document);
+            Integer existing = current.ordinals.get(doc.id());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                current.docs[ordinal].terms().keySet().forEach(term -> removals
+                        .computeIfAbsent(term, t -> new HashSet<>()).add(ordinal));
+            } else {
+                ordinal = current.allocate();
+                current.ordinals.put(doc.id(), ordinal);
+            }
+            // El documento se publica antes que las listas que lo nombran
+            current.docs[ordinal] = doc;
+            doc.terms().forEach((term, fields) -> additions
+                    .computeIfAbsent(term, t -> new TreeMap<>()).put(ordinal, fields));
+        }
+
+        Set<String> touched = new HashSet<>(removals.keySet());
+        touched.addAll(additions.keySet());
+        for (String term : touched) {
+            Posting posting = current.terms.getOrDefault(term, Posting.EMPTY).edit(
+                    removals.getOrDefault(term, Set.of()),
+                    additions.getOrDefault(term, Collections.emptyNavigableMap()));
+            if (posting.ordinals().length == 0) {
+                current.terms.remove(term);
+            } else {
+                current.terms.put(term, posting);
+            }
+        }
+        // Y se retira después de que ninguna lista lo nombra
+        for (int ordinal : freed) {
+            current.docs[ordinal] = null;
+        }
+        current.freed += freed.size();
+
+        if (current.freed >= MIN_FREED_TO_COMPACT && current.freed * 4L > current.size) {
+            state = State.of(current.ready, current.liveDocs());
+        }
+    }
+
+    private record Doc(long id, ProductCategory category, ProductSummaryDTO summary, Map<String, Byte> terms) {
+
+        static Doc of(ProductDocument document) {
+            Map<String, Byte> terms = new HashMap<>();
+            for (String token : TextNormalizer.tokens(document.name())) {
+                terms.merge(token, NAME, (a, b) -> (byte) (a | b));
+            }
+            for (String token : TextNormalizer.tokens(document.brand())) {
+                terms.merge(token, BRAND, (a, b) -> (byte) (a | b));
+            }
+            return new Doc(document.id(), document.category(), document.toSummary(), terms);
+        }
+    }
+
+    /**
+     * Estado que leen las consultas. Las escrituras lo modifican en su lugar
+     * (términos y documentos); una reconstrucción o compactación publica uno
+     * nuevo y el anterior deja de cambiar.
+     */
+    private static final class State {
+
+        final boolean ready;
+        final ConcurrentNavigableMap<String, Posting> terms = new ConcurrentSkipListMap<>();
+        final Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+        volatile Doc[] docs;
+        // Solo los usa quien escribe, siempre bajo el monitor del índice
+        int size;
+        int freed;
+
+        private State(boolean ready, int capacity) {
+            this.ready = ready;
+            this.docs = new Doc[Math.max(16, capacity)];
+        }
+
+        static State of(boolean ready, Collection<Doc> documents) {
+            State state = new State(ready, documents.size());
+            Map<String, PostingBuilder> builders = new HashMap<>();
+            documents.stream()
+                    .sorted(Comparator.comparingLong(Doc::id))
+                    .forEach(doc -> {
+                        int ordinal = state.allocate();
+                        state.docs[ordinal] = doc;
+                        state.ordinals.put(doc.id(), ordinal);
+                        doc.terms().forEach((term, fields) -> builders
+                                .computeIfAbsent(term, t -> new PostingBuilder())
+                                .add(ordinal, fields));
+                    });
+            builders.forEach((term, builder) -> state.terms.put(term, builder.build()));
+            return state;
+        }
+
+        int allocate() {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            return size++;
+        }
+
+        List<Doc> liveDocs() {
+            List<Doc> live = new ArrayList<>(size - freed);
+            Doc[] current = docs;
+            for (int i = 0; i < size; i++) {
+                if (current[i] != null) {
+                    live.add(current[i]);
+                }
+            }
+            return live;
+        }
+
+        // Todas las expansiones del prefijo cuentan: el costo crece con los términos que lo comparten
+        void match(String token, Scratch scratch) {
+            Posting exact = terms.get(token);
+            if (exact != null) {
+                exact.accumulate(scratch, 1f);
+            }
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                for (Map.Entry<String, Posting> candidate : terms.tailMap(token, false).entrySet()) {
+                    String term = candidate.getKey();
+                    if (!term.startsWith(token)) {
+                        break;
+                    }
+                    candidate.getValue().accumulate(scratch, PREFIX_FACTOR * token.length() / term.length());
+                }
+            }
+        }
+    }
+
+    // Aciertos de una consulta en arreglos paralelos, en orden de ordinal
+    private record Hits(Doc[] docs, float[] scores, int count) {
+
+        static final Hits NONE = new Hits(new Doc[0], new float[0], 0);
+
+        long id(int hit) {
+            return docs[hit].id();
+        }
+
+        // Relevancia descendente y, a igual relevancia, id ascendente
+        boolean precedes(int a, int b) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && docs[a].id() < docs[b].id());
+        }
+
+        private boolean isAfter(int hit, float score, long id) {
+            return scores[hit] < score || (scores[hit] == score && docs[hit].id() > id);
+        }
+
+        /**
+         * Los k primeros aciertos en orden, opcionalmente solo los posteriores
+         * al cursor. Un montículo de tamaño k guarda en la raíz al peor de los
+         * elegidos; al final se ordena en su lugar.
+         */
+        int[] top(int k, Cursor after) {
+            float afterScore = after != null ? after.score() : 0f;
+            int[] heap = new int[Math.min(k, count)];
+            int size = 0;
+            for (int hit = 0; hit < count; hit++) {
+                if (after != null && !isAfter(hit, afterScore, after.id())) {
+                    continue;
+                }
+                if (size < heap.length) {
+                    heap[size] = hit;
+                    siftUp(heap, size++);
+                } else if (heap.length > 0 && precedes(hit, heap[0])) {
+                    heap[0] = hit;
+                    siftDown(heap, 0, size);
+                }
+            }
+            for (int end = size - 1; end > 0; end--) {
+                swap(heap, 0, end);
+                siftDown(heap, 0, end);
+            }
+            return size == heap.length ? heap : Arrays.copyOf(heap, size);
+        }
+
+        List<ProductSummaryDTO> summaries(int[] ordered, int from) {
+            List<ProductSummaryDTO> summaries = new ArrayList<>(Math.max(0, ordered.length - from));
+            for (int i = from; i < ordered.length; i++) {
+                summaries.add(docs[ordered[i]].summary());
+            }
+            return summaries;
+        }
+
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!precedes(heap[parent], heap[index])) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int index, int size) {
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && precedes(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && precedes(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(heap, index, worst);
+                index = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    // Arreglos de trabajo por hilo, indexados por ordinal
+    private static final class Scratch {
+
+        float[] current = new float[0];
+        float[] total = new float[0];
+        final BitSet touched = new BitSet();
+        int capacity;
+
+        void ensureCapacity(int needed) {
+            if (current.length < needed) {
+                current = new float[needed];
+                total = new float[needed];
+            }
+            capacity = needed;
+            touched.clear();
+        }
+
+        // Puntaje del token: el mejor entre el término exacto y sus expansiones
+        void offer(int ordinal, float score) {
+            if (score > current[ordinal]) {
+                current[ordinal] = score;
+            }
+            touched.set(ordinal);
+        }
+
+        void clearCurrent() {
+            for (int ordinal = touched.nextSetBit(0); ordinal >= 0; ordinal = touched.nextSetBit(ordinal + 1)) {
+                current[ordinal] = 0f;
+            }
+            touched.clear();
+        }
+    }
+
+    private record Posting(int[] ordinals, byte[] fields) {
+
+        static final Posting EMPTY = new Posting(new int[0], new byte[0]);
+
+        void accumulate(Scratch scratch, float factor) {
+            for (int i = 0; i < ordinals.length; i++) {
+                // Ordinales asignados después de empezar la consulta: el producto es más nuevo que ella
+                if (ordinals[i] >= scratch.capacity) {
+                    return;
+                }
+                float weight = ((fields[i] & NAME) != 0 ? NAME_WEIGHT : 0f)
+                        + ((fields[i] & BRAND) != 0 ? BRAND_WEIGHT : 0f);
+                scratch.offer(ordinals[i], weight * factor);
+            }
+        }
+
+        // Mezcla ordenada de la lista actual con las altas; una alta reemplaza al ordinal existente
+        Posting edit(Set<Integer> removed, NavigableMap<Integer, Byte> added) {
+            PostingBuilder builder = new PostingBuilder(ordinals.length + added.size());
+            Iterator<Map.Entry<Integer, Byte>> additions = added.entrySet().iterator();
+            Map.Entry<Integer, Byte> next = additions.hasNext() ? additions.next() : null;
+            for (int i = 0; i < ordinals.length; i++) {
+                while (next != null && next.getKey() < ordinals[i]) {
+                    builder.add(next.getKey(), next.getValue());
+                    next = additions.hasNext() ? additions.next() : null;
+                }
+                if (next != null && next.getKey() == ordinals[i]) {
+                    builder.add(next.getKey(), next.getValue());
+                    next = additions.hasNext() ? additions.next() : null;
+                } else if (!removed.contains(ordinals[i])) {
+                    builder.add(ordinals[i], fields[i]);
+                }
+            }
+            while (next != null) {
+                builder.add(next.getKey(), next.getValue());
+                next = additions.hasNext() ? additions.next() : null;
+            }
+            return builder.build();
+        }
+    }
+
+    private static final class PostingBuilder {
+
+        private int[] ordinals;
+        private byte[] fields;
+        private int size;
+
+        PostingBuilder() {
+            this(4);
+        }
+
+        PostingBuilder(int capacity) {
+            ordinals = new int[Math.max(4, capacity)];
+            fields = new byte[ordinals.length];
+        }
+
+        void add(int ordinal, byte field) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            ordinals[size] = ordinal;
+            fields[size] = field;
+            size++;
+        }
+
+        Posting build() {
+            return new Posting(Arrays.copyOf(ordinals, size), Arrays.copyOf(fields, size));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.isidora.klari_api.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.isidora.klari_api.dto.ProductSuggestionDTO;
+import com.isidora.klari_api.dto.ProductSuggestionDTO.Field;
+
+/**
+ * Autocompletado por prefijo sobre nombre y marca. Las claves normalizadas
+ * viven en arreglos ordenados: una búsqueda binaria localiza el prefijo y se
+ * leen como mucho {@code limit} entradas consecutivas. Cada escritura
+ * publica un snapshot nuevo: una lectura ve el anterior o el siguiente completo.
+ */
+@Component
+public class ProductSuggestIndex implements ProductIndex {
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Override
+    public boolean isReady() {
+        return snapshot.ready();
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<ProductDocument> documents) {
+        snapshot = Snapshot.EMPTY.apply(true, documents, List.of());
+    }
+
+    @Override
+    public synchronized void upsertAll(Collection<ProductDocument> documents) {
+        snapshot = snapshot.apply(snapshot.ready(), documents, List.of());
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Long> ids) {
+        snapshot = snapshot.apply(snapshot.ready(), List.of(), ids);
+    }
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        List<ProductSuggestionDTO> results = new ArrayList<>(limit);
+        Set<Object> seen = new HashSet<>();
+        current.primary().collect(key, limit, results, seen);
+        current.secondary().collect(key, limit, results, seen);
+        return results;
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", TextNormalizer.tokens(text));
+    }
+
+    /**
+     * primary: inicio del nombre o de la marca; secondary: palabras internas.
+     * Las marcas se cuentan por producto para publicar una sola sugerencia por
+     * marca y retirarla cuando ya no queda ninguno.
+     */
+    private record Snapshot(
+            boolean ready,
+            Map<Long, ProductDocument> products,
+            Map<String, Integer> brandCounts,
+            Keys primary,
+            Keys secondary) {
+
+        static final Snapshot EMPTY = new Snapshot(false, Map.of(), Map.of(), Keys.EMPTY, Keys.EMPTY);
+
+        Snapshot apply(boolean ready, Collection<ProductDocument> upserts, Collection<Long> removedIds) {
+            Map<Long, ProductDocument> nextProducts = new HashMap<>(products);
+            Map<String, Integer> nextBrandCounts = new HashMap<>(brandCounts);
+            Map<String, String> brandTexts = new HashMap<>();
+            Set<Long> staleProducts = new HashSet<>();
+            List<KeyedSuggestion> addedPrimary = new ArrayList<>();
+            List<KeyedSuggestion> addedSecondary = new ArrayList<>();
+
+            for (Long id : removedIds) {
+                ProductDocument previous = nextProducts.remove(id);
+                if (previous != null) {
+                    staleProducts.add(id);
+                    nextBrandCounts.computeIfPresent(normalize(previous.brand()), (key, count) -> count - 1);
+                }
+            }
+            for (ProductDocument document : upserts) {
+                ProductDocument previous = nextProducts.put(document.id(), document);
+                if (previous != null) {
+                    staleProducts.add(document.id());
+                    nextBrandCounts.computeIfPresent(normalize(previous.brand()), (key, count) -> count - 1);
+                }
+                ProductSuggestionDTO suggestion = new ProductSuggestionDTO(
+                        document.name(), Field.NAME, document.id(), document.category());
+                addKeys(TextNormalizer.tokens(document.name()), suggestion, addedPrimary, addedSecondary);
+
+                String brandKey = normalize(document.brand());
+                if (!brandKey.isEmpty()) {
+                    nextBrandCounts.merge(brandKey, 1, Integer::sum);
+                    brandTexts.putIfAbsent(brandKey, document.brand());
+                }
+            }
+
+            Set<String> staleBrands = new HashSet<>();
+            for (String brandKey : new HashSet<>(nextBrandCounts.keySet())) {
+                boolean wasListed = brandCounts.getOrDefault(brandKey, 0) > 0;
+                boolean isListed = nextBrandCounts.get(brandKey) > 0;
+                if (!isListed) {
+                    nextBrandCounts.remove(brandKey);
+                }
+                if (wasListed && !isListed) {
+                    staleBrands.add(brandKey);
+                } else if (!wasListed && isListed) {
+                    ProductSuggestionDTO suggestion = new ProductSuggestionDTO(
+                            brandTexts.get(brandKey), Field.BRAND, null, null);
+                    addKeys(List.of(brandKey.split(" ")), suggestion, addedPrimary, addedSecondary);
+                }
+            }
+
+            return new Snapshot(ready, nextProducts, nextBrandCounts,
+                    primary.edit(staleProducts, staleBrands, addedPrimary),
+                    secondary.edit(staleProducts, staleBrands, addedSecondary));
+        }
+
+        private static void addKeys(List<String> words, ProductSuggestionDTO suggestion,
+                List<KeyedSuggestion> primary, List<KeyedSuggestion> secondary) {
+            for (int i = 0; i < words.size(); i++) {
+                String key = String.join(" ", words.subList(i, words.size()));
+                (i == 0 ? primary : secondary).add(new KeyedSuggestion(key, suggestion));
+            }
+        }
+    }
+
+    private record KeyedSuggestion(String key, ProductSuggestionDTO suggestion) {
+
+        static final Comparator<KeyedSuggestion> ORDER = Comparator
+                .comparing(KeyedSuggestion::key)
+                .thenComparing(entry -> entry.suggestion().field())
+                .thenComparing(entry -> entry.suggestion().productId(),
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private record Keys(String[] keys, ProductSuggestionDTO[] suggestions) {
+
+        static final Keys EMPTY = new Keys(new String[0], new ProductSuggestionDTO[0]);
+
+        // Mezcla ordenada: descarta las entradas obsoletas e intercala las nuevas en O(n)
+        Keys edit(Set<Long> staleProducts, Set<String> staleBrands, List<KeyedSuggestion> added) {
+            if (staleProducts.isEmpty() && staleBrands.isEmpty() && added.isEmpty()) {
+                return this;
+            }
+            added.sort(KeyedSuggestion.ORDER);
+
+            List<KeyedSuggestion> merged = new ArrayList<>(keys.length + added.size());
+            int next = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (isStale(suggestions[i], staleProducts, staleBrands)) {
+                    continue;
+                }
+                KeyedSuggestion current = new KeyedSuggestion(keys[i], suggestions[i]);
+                while (next < added.size() && KeyedSuggestion.ORDER.compare(added.get(next), current) < 0) {
+                    merged.add(added.get(next++));
+                }
+                merged.add(current);
+            }
+            merged.addAll(added.subList(next, added.size()));
+
+            String[] nextKeys = new String[merged.size()];
+            ProductSuggestionDTO[] nextSuggestions = new ProductSuggestionDTO[merged.size()];
+            for (int i = 0; i < nextKeys.length; i++) {
+                nextKeys[i] = merged.get(i).key();
+                nextSuggestions[i] = merged.get(i).suggestion();
+            }
+            return new Keys(nextKeys, nextSuggestions);
+        }
+
+        void collect(String prefix, int limit, List<ProductSuggestionDTO> results, Set<Object> seen) {
+            for (int i = lowerBound(prefix); i < keys.length && results.size() < limit; i++) {
+                if (!keys[i].startsWith(prefix)) {
+                    return;
+                }
+                ProductSuggestionDTO suggestion = suggestions[i];
+                Object identity = suggestion.productId() != null ? suggestion.productId() : suggestion.text();
+                if (seen.add(identity)) {
+                    results.add(suggestion);
+                }
+            }
+        }
+
+        private static boolean isStale(ProductSuggestionDTO suggestion, Set<Long> staleProducts,
+                Set<String> staleBrands) {
+            if (suggestion.productId() != null) {
+                return staleProducts.contains(suggestion.productId());
+            }
+            return !staleBrands.isEmpty() && staleBrands.contains(normalize(suggestion.text()));
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -17,7 +17,7 @@ import java.util.Collections;
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
 
     @Override
     protected void doFilterInternal(
@@ -25,26 +25,23 @@ public class JwtFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        String authHeader = request.getHeader("Authorization");
+        String token = TokenVerifier.bearerToken(request.getHeader("Authorization"));
 
-         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-
-            if (jwtUtil.isTokenValid(token)) {
-
-                Long userId = jwtUtil.extractUserId(token);
+        if (token != null) {
+            // Una sola verificación por pedido; con el token ya visto ni siquiera se revisa la firma
+            tokenVerifier.verify(token).ifPresent(verified -> {
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                userId,
+                                verified.userId(),
                                 null,
                                 Collections.emptyList()
                         );
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            });
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
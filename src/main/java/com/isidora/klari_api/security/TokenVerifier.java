@@ -0,0 +1,157 @@
+package com.isidora.klari_api.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Verifica los tokens de acceso. El resultado se guarda en una caché acotada
+ * con el hash del token como clave y vence junto con el token, así que los
+ * pedidos siguientes con el mismo token no repiten la verificación de la firma.
+ * Los tokens revocados al cerrar sesión se rechazan hasta que expiran; la lista
+ * vive en memoria, por instancia, y nunca descarta una revocación vigente: al
+ * llegar al tope se rechazan revocaciones nuevas en vez de olvidar las viejas.
+ */
+@Component
+public class TokenVerifier {
+
+    private static final String BEARER = "Bearer ";
+
+    public record VerifiedToken(Long userId, String jti, Instant expiresAt) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, VerifiedToken> verified;
+    // jti (o hash, para tokens emitidos sin jti) -> expiración del token
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final long maxRevoked;
+    private final Timer validVerifications;
+    private final Timer invalidVerifications;
+
+    public TokenVerifier(JwtUtil jwtUtil, MeterRegistry meterRegistry,
+            @Value("${klari.jwt-cache.max-entries:10000}") long maxEntries,
+            @Value("${klari.jwt-cache.max-revoked:100000}") long maxRevoked) {
+        this.jwtUtil = jwtUtil;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) -> untilExpiry(token.expiresAt())))
+                .recordStats()
+                .build();
+        this.maxRevoked = maxRevoked;
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.tokens");
+        Gauge.builder("jwt.revoked", revoked, Map::size).register(meterRegistry);
+        this.validVerifications = Timer.builder("jwt.verification").tag("result", "valid").register(meterRegistry);
+        this.invalidVerifications = Timer.builder("jwt.verification").tag("result", "invalid").register(meterRegistry);
+    }
+
+    // Token de una cabecera Authorization, o null si no es Bearer
+    public static String bearerToken(String authHeader) {
+        return authHeader != null && authHeader.startsWith(BEARER) ? authHeader.substring(BEARER.length()) : null;
+    }
+
+    // Los tokens inválidos no se guardan: cada intento vuelve a verificarse
+    public Optional<VerifiedToken> verify(String token) {
+        return verify(hash(token), token);
+    }
+
+    // Devuelve false si el token ya no era válido; 503 si la lista está llena de revocaciones vigentes
+    public synchronized boolean revoke(String token) {
+        String key = hash(token);
+        Optional<VerifiedToken> verifiedToken = verify(key, token);
+        if (verifiedToken.isEmpty()) {
+            return false;
+        }
+        if (revoked.size() >= maxRevoked) {
+            Instant now = Instant.now();
+            revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+            if (revoked.size() >= maxRevoked) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "No se pueden revocar más sesiones por ahora");
+            }
+        }
+        revoked.put(revocationId(key, verifiedToken.get()), verifiedToken.get().expiresAt());
+        verified.invalidate(key);
+        return true;
+    }
+
+    private Optional<VerifiedToken> verify(String key, String token) {
+        VerifiedToken verifiedToken = verified.get(key, k -> parse(token));
+        if (verifiedToken == null || isRevoked(key, verifiedToken)) {
+            return Optional.empty();
+        }
+        return Optional.of(verifiedToken);
+    }
+
+    // Las revocaciones vencidas se descartan al consultarlas o al llenarse la lista
+    private boolean isRevoked(String key, VerifiedToken token) {
+        String id = revocationId(key, token);
+        Instant expiresAt = revoked.get(id);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (!expiresAt.isAfter(Instant.now())) {
+            revoked.remove(id, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    private static String revocationId(String key, VerifiedToken token) {
+        return token.jti() != null ? token.jti() : key;
+    }
+
+    private VerifiedToken parse(String token) {
+        long start = System.nanoTime();
+        VerifiedToken verifiedToken = null;
+        try {
+            Claims claims = jwtUtil.extractClaims(token);
+            Long userId = claims.get("userId", Long.class);
+            if (userId != null && claims.getExpiration() != null) {
+                verifiedToken = new VerifiedToken(userId, claims.getId(), claims.getExpiration().toInstant());
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            // Firma, formato o expiración inválidos
+        }
+        (verifiedToken != null ? validVerifications : invalidVerifications)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verifiedToken;
+    }
+
+    private static Duration untilExpiry(Instant expiresAt) {
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    // El token completo no queda en memoria, solo su hash
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.isidora.klari_api.service;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.isidora.klari_api.model.User;
 import com.isidora.klari_api.repository.UserRepository;
 import com.isidora.klari_api.security.JwtUtil;
+import com.isidora.klari_api.security.TokenVerifier;
 
 import lombok.RequiredArgsConstructor;
 
@@ -16,6 +19,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
 
     public AuthResponse register(String username, String email, String password) {
 
@@ -48,6 +52,13 @@ public class AuthService {
         return new AuthResponse(user.getId(), user.getUsername(), user.getEmail(), token);
     }
 
+    // El token queda revocado hasta su expiración
+    public void logout(String token) {
+        if (token == null || !tokenVerifier.revoke(token)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token inválido");
+        }
+    }
+
     public record AuthResponse(Long userId, String username, String email, String token) {
     }
 
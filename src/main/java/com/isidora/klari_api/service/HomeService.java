@@ -0,0 +1,194 @@
+package com.isidora.klari_api.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.HomeDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.RoutineSummaryDTO;
+import com.isidora.klari_api.dto.UserProfileDTO;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Arma la pantalla de inicio en un solo pedido. Las lecturas independientes
+ * corren a la vez en un pool acotado, con el contexto de seguridad del pedido,
+ * y todas comparten un plazo: lo que no llega a tiempo se omite y se informa en
+ * {@code missing} para que el cliente lo pida por su endpoint. Las consultas de
+ * cada parte corren en una transacción de solo lectura con lo que queda del
+ * plazo como timeout, así la base las corta en vez de seguir ocupando conexión.
+ */
+@Slf4j
+@Service
+public class HomeService {
+
+    private final UserService userService;
+    private final RoutineService routineService;
+    private final ProductService productService;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    // Cada parte usa su propia conexión: threads acota cuántas toma la pantalla de inicio del pool
+    public HomeService(UserService userService, RoutineService routineService, ProductService productService,
+            PlatformTransactionManager transactionManager,
+            @Value("${klari.home.threads:8}") int threads,
+            @Value("${klari.home.queue:64}") int queueCapacity,
+            @Value("${klari.home.timeout-ms:1500}") long timeoutMillis) {
+        this.userService = userService;
+        this.routineService = routineService;
+        this.productService = productService;
+        this.transactionManager = transactionManager;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "home-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public HomeDTO getHome(Long userId, ProductCategory category, ProductApplicationTime time, int size) {
+        assertSelf(userId);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        SecurityContext context = SecurityContextHolder.getContext();
+
+        // Perfil y recomendaciones pueden salir de memoria: abren la transacción solo si van a la base
+        CompletableFuture<UserProfileDTO> profile = submit(transaction -> userService.findCachedProfile(userId)
+                .orElseGet(() -> transaction.execute(status -> userService.getProfile(userId))), context, deadline);
+        CompletableFuture<RoutineSummaryDTO> dayRoutine = submit(transaction -> transaction.execute(
+                status -> routineService.findActiveDayRoutine(userId).orElse(null)), context, deadline);
+        CompletableFuture<RoutineSummaryDTO> nightRoutine = submit(transaction -> transaction.execute(
+                status -> routineService.findActiveNightRoutine(userId).orElse(null)), context, deadline);
+        CompletableFuture<CursorPageDTO<ProductSummaryDTO>> favorites = submit(transaction -> transaction.execute(
+                status -> userService.scrollFavoriteSummaries(userId, null, null, size)), context, deadline);
+        CompletableFuture<CursorPageDTO<ProductSummaryDTO>> inventory = submit(transaction -> transaction.execute(
+                status -> userService.scrollInventorySummaries(userId, null, null, size)), context, deadline);
+        // Las recomendaciones dependen del tipo de piel y las metas del perfil
+        CompletableFuture<List<ProductSummaryDTO>> recommendations = profile.thenCompose(user -> submit(
+                transaction -> {
+                    Supplier<List<ProductSummaryDTO>> recommend = () -> productService.findForRoutineSimple(
+                            category, time, user.skinType(), user.goals(), size);
+                    return productService.recommendsFromIndex()
+                            ? recommend.get()
+                            : transaction.execute(status -> recommend.get());
+                },
+                context, deadline));
+
+        Set<String> missing = new LinkedHashSet<>();
+        return new HomeDTO(
+                await("profile", profile, deadline, missing),
+                await("dayRoutine", dayRoutine, deadline, missing),
+                await("nightRoutine", nightRoutine, deadline, missing),
+                await("favorites", favorites, deadline, missing),
+                await("inventory", inventory, deadline, missing),
+                await("recommendations", recommendations, deadline, missing),
+                missing);
+    }
+
+    // Con la cola llena la parte se omite: correrla en el hilo del pedido se saltaría el plazo
+    private <T> CompletableFuture<T> submit(Function<TransactionTemplate, T> part, SecurityContext context,
+            long deadline) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = DelegatingSecurityContextRunnable.create(() -> {
+            long remaining = deadline - System.nanoTime();
+            // Si el plazo ya venció nadie espera el resultado
+            if (future.isDone() || remaining <= 0) {
+                return;
+            }
+            try {
+                future.complete(part.apply(readOnly(remaining)));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, context);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.cancel(false);
+        }
+        return future;
+    }
+
+    // El timeout de JDBC va en segundos: se redondea hacia arriba para no cortar antes del plazo
+    private TransactionTemplate readOnly(long remainingNanos) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) TimeUnit.NANOSECONDS.toSeconds(remainingNanos - 1) + 1);
+        return transaction;
+    }
+
+    // Un plazo vencido deja la parte fuera; un error se propaga igual que en su endpoint
+    private static <T> T await(String part, CompletableFuture<T> future, long deadline, Set<String> missing) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            log.debug("Inicio sin {}: no llegó a tiempo", part);
+        } catch (CancellationException e) {
+            log.debug("Inicio sin {}: el pool está lleno", part);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+        } catch (ExecutionException e) {
+            // Las recomendaciones se encadenan al perfil: si el pool las rechazó llega envuelto
+            if (e.getCause() instanceof CancellationException) {
+                log.debug("Inicio sin {}: el pool está lleno", part);
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        missing.add(part);
+        return null;
+    }
+
+    private Long authUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No autenticado");
+        }
+        return (Long) auth.getPrincipal();
+    }
+
+    private void assertSelf(Long pathUserId) {
+        Long me = authUserId();
+        if (!me.equals(pathUserId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No autorizado");
+        }
+    }
+}
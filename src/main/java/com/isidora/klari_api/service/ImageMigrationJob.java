@@ -0,0 +1,112 @@
+package com.isidora.klari_api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductIndexer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mueve en segundo plano las imágenes guardadas como data URI en la tabla de
+ * productos al almacén de imágenes, dejando en la fila solo la URL corta.
+ */
+@Slf4j
+@Component
+public class ImageMigrationJob {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final ProductRepository productRepository;
+    private final ImageStorageService imageStorageService;
+    private final ProductIndexer productIndexer;
+    private final TransactionTemplate transaction;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${klari.images.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    public ImageMigrationJob(ProductRepository productRepository, ImageStorageService imageStorageService,
+            ProductIndexer productIndexer, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.imageStorageService = imageStorageService;
+        this.productIndexer = productIndexer;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (migrateOnStartup) {
+            executor.execute(this::migrate);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    void migrate() {
+        int migrated = 0;
+        long afterId = 0L;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = productRepository.findIdsWithDataUriImageAfter(afterId, PageRequest.ofSize(BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> updated = new ArrayList<>();
+            for (Long id : ids) {
+                try {
+                    if (migrate(id)) {
+                        updated.add(id);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo migrar la imagen del producto {}: {}", id, e.getMessage());
+                }
+            }
+            if (!updated.isEmpty()) {
+                List<Product> products = transaction.execute(
+                        status -> productRepository.findAllById(updated));
+                productIndexer.indexed(products);
+                migrated += updated.size();
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (migrated > 0) {
+            log.info("Imágenes migradas al almacén: {}", migrated);
+        }
+    }
+
+    private boolean migrate(Long id) {
+        Optional<String> imageUrl = productRepository.findImageUrlById(id);
+        if (imageUrl.isEmpty() || !ImageStorageService.isDataUri(imageUrl.get())) {
+            return false;
+        }
+        String externalized = imageStorageService.externalize(imageUrl.get());
+        if (externalized.equals(imageUrl.get())) {
+            return false;
+        }
+        // Si la fila cambió mientras tanto no se pisa la edición
+        Integer changed = transaction.execute(
+                status -> productRepository.replaceImageUrl(id, imageUrl.get(), externalized));
+        return changed != null && changed > 0;
+    }
+}
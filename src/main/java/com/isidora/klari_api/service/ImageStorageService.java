@@ -0,0 +1,163 @@
+package com.isidora.klari_api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Almacén de imágenes direccionado por contenido: cada archivo se nombra con
+ * el SHA-256 de sus bytes, de modo que la misma imagen se guarda una sola vez
+ * y su URL nunca cambia de contenido.
+ */
+@Service
+public class ImageStorageService {
+
+    public static final String URL_PREFIX = "/api/images/";
+
+    private static final Pattern DATA_URI = Pattern.compile("^data:([\\w.+-]+/[\\w.+-]+)?(?:;[^,;]+)*;base64,(.*)$",
+            Pattern.DOTALL);
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+
+    // Solo se aceptan imágenes raster; SVG y .bin quedan para servir archivos guardados antes
+    private static final Map<String, String> RASTER_EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/webp", "webp",
+            "image/gif", "gif");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/webp", "webp",
+            "image/gif", "gif",
+            "image/svg+xml", "svg");
+
+    private final Path root;
+    private final int maxBytes;
+
+    public ImageStorageService(@Value("${klari.images.dir:data/images}") String directory,
+            @Value("${klari.images.max-bytes:5242880}") int maxBytes) {
+        this.root = Path.of(directory).toAbsolutePath();
+        this.maxBytes = maxBytes;
+    }
+
+    public record StoredImage(String hash, Path path, String contentType) {
+    }
+
+    public static boolean isRaster(String contentType) {
+        return RASTER_EXTENSIONS.containsKey(contentType);
+    }
+
+    public static boolean isDataUri(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith("data:");
+    }
+
+    // Hash de una URL del almacén, o vacío si la imagen está en otro lado
+    public static Optional<String> hashOf(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith(URL_PREFIX)) {
+            return Optional.empty();
+        }
+        String hash = imageUrl.substring(URL_PREFIX.length());
+        return HASH.matcher(hash).matches() ? Optional.of(hash) : Optional.empty();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // Convierte data URIs en URLs del almacén; cualquier otra URL se deja igual
+    public String externalize(String imageUrl) {
+        if (!isDataUri(imageUrl)) {
+            return imageUrl;
+        }
+        Matcher matcher = DATA_URI.matcher(imageUrl);
+        if (!matcher.matches()) {
+            return imageUrl;
+        }
+        String contentType = matcher.group(1) != null ? matcher.group(1).toLowerCase() : "application/octet-stream";
+        if (!isRaster(contentType)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Tipo de imagen no soportado: " + contentType);
+        }
+        return URL_PREFIX + store(decode(matcher.group(2)), contentType);
+    }
+
+    // Decodifica por partes y corta al pasar el máximo, sin reservar memoria para el resto
+    private byte[] decode(String base64) {
+        byte[] encoded = base64.getBytes(StandardCharsets.ISO_8859_1);
+        try (InputStream in = Base64.getMimeDecoder().wrap(new ByteArrayInputStream(encoded))) {
+            byte[] data = in.readNBytes(maxBytes + 1);
+            if (data.length > maxBytes) {
+                throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                        "La imagen supera el tamaño máximo de " + maxBytes + " bytes");
+            }
+            return data;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Imagen en base64 inválida", e);
+        }
+    }
+
+    public String store(byte[] data, String contentType) {
+        String extension = RASTER_EXTENSIONS.get(contentType);
+        if (extension == null) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Tipo de imagen no soportado: " + contentType);
+        }
+        String hash = sha256(data);
+        Path target = root.resolve(hash + "." + extension);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, hash, ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen", e);
+        }
+        return hash;
+    }
+
+    public Optional<StoredImage> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        for (Map.Entry<String, String> extension : EXTENSIONS.entrySet()) {
+            Path path = root.resolve(hash + "." + extension.getValue());
+            if (Files.isRegularFile(path)) {
+                return Optional.of(new StoredImage(hash, path, extension.getKey()));
+            }
+        }
+        Path path = root.resolve(hash + ".bin");
+        if (Files.isRegularFile(path)) {
+            return Optional.of(new StoredImage(hash, path, "application/octet-stream"));
+        }
+        return Optional.empty();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.isidora.klari_api.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.isidora.klari_api.model.enums.ImageVariant;
+import com.isidora.klari_api.service.ImageStorageService.StoredImage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Genera versiones reducidas de las imágenes del almacén. Se calculan en un
+ * pool acotado al guardar un producto, o bajo demanda la primera vez que se
+ * piden, y quedan en disco junto al original.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final long ON_DEMAND_TIMEOUT_SECONDS = 10;
+    private static final float JPEG_QUALITY = 0.82f;
+    // Archivo vacío que indica que la variante es el propio original
+    private static final String ORIGINAL_MARKER = "orig";
+
+    private final ImageStorageService imageStorageService;
+    private final Path variantsRoot;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ImageStorageService imageStorageService,
+            @Value("${klari.images.variant-threads:2}") int threads,
+            @Value("${klari.images.variant-queue:256}") int queueCapacity,
+            @Value("${klari.images.max-pixels:40000000}") long maxPixels) {
+        this.imageStorageService = imageStorageService;
+        this.variantsRoot = imageStorageService.getRoot().resolve("variants");
+        this.maxPixels = maxPixels;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // definitive es false cuando se entrega el original porque la variante aún no está lista
+    public record VariantImage(Path path, String contentType, boolean definitive) {
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Encola la generación de todas las variantes; no bloquea al que guarda el producto
+    public void generateAsync(String imageUrl) {
+        ImageStorageService.hashOf(imageUrl).ifPresent(hash -> {
+            if (!hasAllVariants(hash)) {
+                schedule(hash);
+            }
+        });
+    }
+
+    // Devuelve la variante pedida, generándola si todavía no existe. Si no se puede
+    // derivar (formato no soportado, original más chico) se devuelve el original.
+    public Optional<VariantImage> find(String hash, ImageVariant variant) {
+        Optional<StoredImage> original = imageStorageService.find(hash);
+        if (original.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<VariantImage> cached = cached(hash, variant);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        CompletableFuture<Void> generation = schedule(hash);
+        if (generation != null) {
+            try {
+                generation.get(ON_DEMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                log.debug("Variante {} de {} no disponible a tiempo", variant.getKey(), hash);
+            }
+        }
+        return cached(hash, variant)
+                .or(() -> original.map(image -> new VariantImage(image.path(), image.contentType(), false)));
+    }
+
+    // Una sola generación en curso por imagen; los pedidos simultáneos esperan la misma
+    private CompletableFuture<Void> schedule(String hash) {
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(hash, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateAll(hash);
+                    created.complete(null);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron generar las variantes de {}: {}", hash, e.toString());
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(hash, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash, created);
+            log.debug("Cola de variantes llena, se omite {}", hash);
+            return null;
+        }
+        return created;
+    }
+
+    private void generateAll(String hash) {
+        Optional<StoredImage> original = imageStorageService.find(hash);
+        if (original.isEmpty() || hasAllVariants(hash)) {
+            return;
+        }
+        BufferedImage source = decode(hash, original.get().path());
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (cached(hash, variant).isPresent()) {
+                continue;
+            }
+            // Formatos que ImageIO no lee (SVG), originales enormes u originales ya pequeños se sirven tal cual
+            if (source == null || Math.max(source.getWidth(), source.getHeight()) <= variant.getMaxSize()) {
+                markOriginal(hash, variant);
+                continue;
+            }
+            boolean alpha = source.getColorModel().hasAlpha();
+            BufferedImage resized = resize(source, variant.getMaxSize(), alpha);
+            write(resized, variantPath(hash, variant, alpha ? "png" : "jpg"), alpha);
+        }
+    }
+
+    // Las dimensiones salen de la cabecera antes de decodificar: un archivo chico puede declarar
+    // millones de píxeles. Devuelve null si el formato no se soporta o si supera el máximo.
+    private BufferedImage decode(String hash, Path path) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Imagen {} de {}x{} supera el máximo de píxeles, no se generan variantes",
+                            hash, width, height);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean hasAllVariants(String hash) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (cached(hash, variant).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Optional<VariantImage> cached(String hash, ImageVariant variant) {
+        Path jpg = variantPath(hash, variant, "jpg");
+        if (Files.isRegularFile(jpg)) {
+            return Optional.of(new VariantImage(jpg, "image/jpeg", true));
+        }
+        Path png = variantPath(hash, variant, "png");
+        if (Files.isRegularFile(png)) {
+            return Optional.of(new VariantImage(png, "image/png", true));
+        }
+        if (Files.isRegularFile(variantPath(hash, variant, ORIGINAL_MARKER))) {
+            return imageStorageService.find(hash)
+                    .map(image -> new VariantImage(image.path(), image.contentType(), true));
+        }
+        return Optional.empty();
+    }
+
+    private void markOriginal(String hash, ImageVariant variant) {
+        Path marker = variantPath(hash, variant, ORIGINAL_MARKER);
+        try {
+            Files.createDirectories(marker.getParent());
+            Files.write(marker, new byte[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path variantPath(String hash, ImageVariant variant, String extension) {
+        return variantsRoot.resolve(variant.getKey()).resolve(hash + "." + extension);
+    }
+
+    // Reduce a la mitad en pasos sucesivos para no perder calidad con factores grandes
+    private static BufferedImage resize(BufferedImage source, int maxSize, boolean alpha) {
+        double scale = (double) maxSize / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void write(BufferedImage image, Path target, boolean alpha) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                if (alpha) {
+                    ImageIO.write(image, "png", out);
+                } else {
+                    writeJpeg(image, out);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
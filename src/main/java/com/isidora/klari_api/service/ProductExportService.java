@@ -0,0 +1,120 @@
+package com.isidora.klari_api.service;
+
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+/**
+ * Exporta el catálogo completo como JSON delimitado por líneas (NDJSON) sin
+ * cargarlo en memoria: lee con un cursor JDBC de solo avance; metas y tipos de
+ * piel vienen en la misma fila como máscaras de bits.
+ */
+@Service
+public class ProductExportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String PRODUCTS_SQL = """
+            SELECT id, name, brand, image_url, ingredients, description, category, application_time,
+                goals_mask, skin_types_mask
+            FROM products
+            ORDER BY id
+            """;
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter lineWriter;
+
+    public ProductExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        // El tamaño de fetch solo activa el cursor en PostgreSQL dentro de una transacción
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Cada objeto termina con su propio salto de línea, sin separador adicional
+        this.lineWriter = objectMapper.writer().withRootValueSeparator("");
+    }
+
+    private record Row(long id, String name, String brand, String imageUrl, String ingredients, String description,
+            String category, String applicationTime, int goalsMask, int skinTypesMask) {
+
+        static Row of(ResultSet rs) throws SQLException {
+            return new Row(rs.getLong("id"), rs.getString("name"), rs.getString("brand"),
+                    rs.getString("image_url"), rs.getString("ingredients"), rs.getString("description"),
+                    rs.getString("category"), rs.getString("application_time"),
+                    rs.getInt("goals_mask"), rs.getInt("skin_types_mask"));
+        }
+    }
+
+    // Devuelve la cantidad de productos escritos
+    public long export(OutputStream out) {
+        Long written = readOnlyTransaction.execute(status -> {
+            try (JsonGenerator generator = lineWriter.createGenerator(out)) {
+                List<Row> chunk = new ArrayList<>(FETCH_SIZE);
+                long[] count = { 0 };
+                cursorTemplate.query(PRODUCTS_SQL, rs -> {
+                    chunk.add(Row.of(rs));
+                    if (chunk.size() == FETCH_SIZE) {
+                        count[0] += writeChunk(generator, chunk);
+                        chunk.clear();
+                    }
+                });
+                count[0] += writeChunk(generator, chunk);
+                return count[0];
+            }
+        });
+        return written != null ? written : 0L;
+    }
+
+    private int writeChunk(JsonGenerator generator, List<Row> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        for (Row row : chunk) {
+            generator.writeStartObject();
+            generator.writeNumberProperty("id", row.id());
+            generator.writeStringProperty("name", row.name());
+            generator.writeStringProperty("brand", row.brand());
+            generator.writeStringProperty("imageUrl", row.imageUrl());
+            generator.writeStringProperty("ingredients", row.ingredients());
+            generator.writeStringProperty("description", row.description());
+            generator.writeStringProperty("category", row.category());
+            generator.writeStringProperty("applicationTime", row.applicationTime());
+            writeArray(generator, "goals", EnumMask.toSet(row.goalsMask(), Goal.class));
+            writeArray(generator, "skinTypes", EnumMask.toSet(row.skinTypesMask(), SkinType.class));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return chunk.size();
+    }
+
+    private static void writeArray(JsonGenerator generator, String name, Set<? extends Enum<?>> values) {
+        generator.writeArrayPropertyStart(name);
+        for (Enum<?> value : values) {
+            generator.writeString(value.name());
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,326 @@
+package com.isidora.klari_api.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.dto.ImportReportDTO;
+import com.isidora.klari_api.dto.ImportReportDTO.ChunkResult;
+import com.isidora.klari_api.dto.ImportReportDTO.RejectedRow;
+import com.isidora.klari_api.dto.ProductImportRowDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.repository.ProductJdbcRepository;
+import com.isidora.klari_api.repository.ProductJdbcRepository.Upserted;
+import com.isidora.klari_api.search.ProductIndexer;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * Importación masiva del catálogo desde JSON, NDJSON o CSV. La entrada se lee
+ * en streaming y se procesa por bloques: cada bloque se valida, se cruza con
+ * los productos existentes por (marca, nombre) y se escribe con JDBC en lotes
+ * dentro de su propia transacción.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+    private static final String LIST_SEPARATOR = "\\|";
+    // Largos de las columnas en V1: una fila más larga haría fallar el lote entero en el INSERT
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_TEXT_LENGTH = 200_000;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductIndexer productIndexer;
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+    private final TransactionTemplate transaction;
+    private final ObjectReader rowReader;
+
+    public ProductImportService(ProductJdbcRepository productJdbcRepository, ProductIndexer productIndexer,
+            ImageStorageService imageStorageService, ImageVariantService imageVariantService,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productIndexer = productIndexer;
+        this.imageStorageService = imageStorageService;
+        this.imageVariantService = imageVariantService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.rowReader = objectMapper.readerFor(ProductImportRowDTO.class);
+    }
+
+    // Fila leída de la entrada: o bien el valor, o bien el motivo por el que no se pudo leer
+    private record ParsedRow(long row, ProductImportRowDTO value, String error) {
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    // Un arreglo JSON o una secuencia de objetos; un error de sintaxis corta la importación
+    public ImportReportDTO importJson(InputStream in) {
+        MappingIterator<ProductImportRowDTO> values = rowReader.readValues(in);
+        long[] row = { 0 };
+        return run(() -> {
+            try {
+                return values.hasNextValue() ? new ParsedRow(++row[0], values.nextValue(), null) : null;
+            } catch (JacksonException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "JSON inválido después de la fila " + row[0] + ": " + e.getOriginalMessage());
+            }
+        });
+    }
+
+    // Un objeto por línea; las líneas mal formadas se rechazan sin cortar la importación
+    public ImportReportDTO importNdjson(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long[] row = { 0 };
+        return run(() -> {
+            String line;
+            while ((line = reader.readLine()) != null && line.isBlank()) {
+                row[0]++;
+            }
+            if (line == null) {
+                return null;
+            }
+            row[0]++;
+            try {
+                return new ParsedRow(row[0], rowReader.readValue(line), null);
+            } catch (JacksonException e) {
+                return new ParsedRow(row[0], null, "JSON inválido: " + e.getOriginalMessage());
+            }
+        });
+    }
+
+    // La primera fila trae los nombres de columna; metas y tipos de piel van separados por |
+    public ImportReportDTO importCsv(InputStream in) {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header;
+        try {
+            header = reader.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV vacío");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("brand")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El CSV debe tener las columnas name y brand");
+        }
+
+        long[] row = { 0 };
+        return run(() -> {
+            List<String> fields;
+            while ((fields = reader.next()) != null && fields.stream().allMatch(String::isBlank)) {
+                row[0]++;
+            }
+            if (fields == null) {
+                return null;
+            }
+            row[0]++;
+            List<String> values = fields;
+            return new ParsedRow(row[0], new ProductImportRowDTO(
+                    column(values, columns, "name"),
+                    column(values, columns, "brand"),
+                    column(values, columns, "imageurl"),
+                    column(values, columns, "ingredients"),
+                    column(values, columns, "description"),
+                    column(values, columns, "category"),
+                    column(values, columns, "applicationtime"),
+                    list(column(values, columns, "goals")),
+                    list(column(values, columns, "skintypes"))), null);
+        });
+    }
+
+    // Cargas simultáneas no necesitan coordinarse: el upsert por (marca, nombre) lo resuelve la base
+    private ImportReportDTO run(RowSource source) {
+        long start = System.nanoTime();
+        List<ChunkResult> chunks = new ArrayList<>();
+        List<RejectedRow> rejectedRows = new ArrayList<>();
+        long[] totals = new long[4];
+
+        List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (true) {
+            ParsedRow next;
+            try {
+                next = source.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (next != null) {
+                chunk.add(next);
+            }
+            if (chunk.size() == CHUNK_SIZE || (next == null && !chunk.isEmpty())) {
+                ChunkResult result = processChunk(chunks.size() + 1, chunk, rejectedRows);
+                chunks.add(result);
+                totals[0] += result.rows();
+                totals[1] += result.inserted();
+                totals[2] += result.updated();
+                totals[3] += result.rejected();
+                log.info("Importación: bloque {} ({} filas, {} nuevas, {} actualizadas, {} rechazadas) en {} ms",
+                        result.chunk(), result.rows(), result.inserted(), result.updated(), result.rejected(),
+                        result.millis());
+                chunk.clear();
+            }
+            if (next == null) {
+                break;
+            }
+        }
+        return new ImportReportDTO(totals[0], totals[1], totals[2], totals[3],
+                (System.nanoTime() - start) / 1_000_000, chunks, rejectedRows);
+    }
+
+    private ChunkResult processChunk(int number, List<ParsedRow> rows, List<RejectedRow> rejectedRows) {
+        long start = System.nanoTime();
+        int rejected = 0;
+
+        // Dentro del bloque gana la última fila con la misma marca y nombre
+        Map<String, Product> products = new LinkedHashMap<>();
+        Map<String, Long> rowOfKey = new HashMap<>();
+        for (ParsedRow row : rows) {
+            String error = row.error();
+            Product product = null;
+            if (error == null) {
+                try {
+                    product = toProduct(row.value());
+                    product.setImageUrl(checkLength(imageStorageService.externalize(product.getImageUrl()),
+                            MAX_TEXT_LENGTH, "imageUrl"));
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                } catch (ResponseStatusException e) {
+                    error = e.getReason();
+                }
+            }
+            if (error != null) {
+                rejected++;
+                reject(rejectedRows, row.row(), error);
+                continue;
+            }
+            String key = ProductJdbcRepository.naturalKey(product.getBrand(), product.getName());
+            Long previousRow = rowOfKey.put(key, row.row());
+            if (previousRow != null) {
+                rejected++;
+                reject(rejectedRows, previousRow, "Reemplazada por la fila " + row.row());
+            }
+            products.remove(key);
+            products.put(key, product);
+        }
+
+        Upserted upserted = new Upserted(List.of(), List.of());
+        if (!products.isEmpty()) {
+            upserted = transaction.execute(status -> productJdbcRepository.upsertAll(products.values()));
+            productJdbcRepository.evictFromCache(upserted.updatedIds());
+            reindex(products.values());
+        }
+        return new ChunkResult(number, rows.size(), upserted.insertedIds().size(), upserted.updatedIds().size(),
+                rejected, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void reindex(Collection<Product> products) {
+        productIndexer.indexed(products);
+        products.forEach(product -> imageVariantService.generateAsync(product.getImageUrl()));
+    }
+
+    private static Product toProduct(ProductImportRowDTO row) {
+        String name = trim(row.name());
+        String brand = trim(row.brand());
+        if (name == null || brand == null) {
+            throw new IllegalArgumentException("name y brand son obligatorios");
+        }
+        Product product = new Product();
+        product.setName(checkLength(name, MAX_KEY_LENGTH, "name"));
+        product.setBrand(checkLength(brand, MAX_KEY_LENGTH, "brand"));
+        product.setImageUrl(trim(row.imageUrl()));
+        product.setIngredients(checkLength(row.ingredients(), MAX_TEXT_LENGTH, "ingredients"));
+        product.setDescription(checkLength(row.description(), MAX_TEXT_LENGTH, "description"));
+        product.setCategory(parse(ProductCategory.class, row.category(), "category"));
+        product.setApplicationTime(parse(ProductApplicationTime.class, row.applicationTime(), "applicationTime"));
+        product.setGoals(parseAll(Goal.class, row.goals(), "goals"));
+        product.setSkinTypes(parseAll(SkinType.class, row.skinTypes(), "skinTypes"));
+        return product;
+    }
+
+    // varchar(n) cuenta caracteres, no unidades UTF-16
+    private static String checkLength(String value, int max, String field) {
+        if (value != null && value.codePointCount(0, value.length()) > max) {
+            throw new IllegalArgumentException(field + " supera los " + max + " caracteres");
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String field) {
+        String trimmed = trim(value);
+        if (trimmed == null) {
+            throw new IllegalArgumentException(field + " es obligatorio");
+        }
+        try {
+            return Enum.valueOf(type, trimmed.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + " inválido: " + trimmed);
+        }
+    }
+
+    private static <E extends Enum<E>> Set<E> parseAll(Class<E> type, List<String> values, String field) {
+        Set<E> parsed = EnumSet.noneOf(type);
+        if (values != null) {
+            for (String value : values) {
+                if (trim(value) != null) {
+                    parsed.add(parse(type, value, field));
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static void reject(List<RejectedRow> rejectedRows, long row, String reason) {
+        if (rejectedRows.size() < MAX_REPORTED_REJECTIONS) {
+            rejectedRows.add(new RejectedRow(row, reason));
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    private static List<String> list(String value) {
+        return value == null || value.isBlank() ? List.of() : Arrays.asList(value.split(LIST_SEPARATOR));
+    }
+
+    private static String trim(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
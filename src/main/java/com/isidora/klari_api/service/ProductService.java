@@ -1,8 +1,15 @@
 package com.isidora.klari_api.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -10,13 +17,26 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ProductFacetsDTO;
+import com.isidora.klari_api.dto.ProductSummaryBatchDTO;
+import com.isidora.klari_api.dto.ProductSuggestionDTO;
 import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.VersionedProductSummaryDTO;
 import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.EnumMask;
 import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.SkinType;
 import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductFilter;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
 
 import lombok.RequiredArgsConstructor;
 
@@ -24,10 +44,45 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ProductService {
 
-    private final ProductRepository productRepository;
+    private static final int MAX_BATCH_IDS = 500;
+    private static final String DUPLICATE_MESSAGE = "Ya existe un producto con esa marca y nombre";
 
+    private final ProductRepository productRepository;
+    private final ProductIndexer productIndexer;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductFilterIndex productFilterIndex;
+    private final ProductRecommendationIndex productRecommendationIndex;
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+
+    // "memory" (por defecto) o "jpa" para volver a la cascada de consultas
+    @Value("${klari.recommendations.backend:memory}")
+    private String recommendationBackend;
+
+    // La búsqueda previa solo evita el INSERT en el caso común; dos altas simultáneas
+    // pasan las dos y la clave única (brand, name) rechaza la segunda
     public Product create(Product product) {
-        return productRepository.save(product);
+        product.setVersion(null);
+        if (productRepository.findByNaturalId(product.getBrand(), product.getName()).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, DUPLICATE_MESSAGE);
+        }
+        product.setImageUrl(imageStorageService.externalize(product.getImageUrl()));
+        Product saved = saveUnique(product);
+        productIndexer.indexed(List.of(saved));
+        imageVariantService.generateAsync(saved.getImageUrl());
+        return saved;
+    }
+
+    public List<Product> createAll(List<Product> products) {
+        products.forEach(product -> {
+            product.setVersion(null);
+            product.setImageUrl(imageStorageService.externalize(product.getImageUrl()));
+        });
+        List<Product> saved = productRepository.saveAll(products);
+        productIndexer.indexed(saved);
+        saved.forEach(product -> imageVariantService.generateAsync(product.getImageUrl()));
+        return saved;
     }
 
     public List<Product> findAll() {
@@ -40,11 +95,19 @@ public class ProductService {
     }
 
     public Product update(Long id, Product productDetails) {
+        return update(id, productDetails, null);
+    }
+
+    // expectedVersion viene del If-Match; null actualiza sin comprobar
+    public Product update(Long id, Product productDetails, Long expectedVersion) {
         Product product = findById(id);
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "El producto cambió desde que se leyó");
+        }
 
         product.setName(productDetails.getName());
         product.setBrand(productDetails.getBrand());
-        product.setImageUrl(productDetails.getImageUrl());
+        product.setImageUrl(imageStorageService.externalize(productDetails.getImageUrl()));
         product.setIngredients(productDetails.getIngredients());
         product.setDescription(productDetails.getDescription());
         product.setCategory(productDetails.getCategory());
@@ -52,12 +115,24 @@ public class ProductService {
         product.setSkinTypes(productDetails.getSkinTypes());
         product.setGoals(productDetails.getGoals());
 
-        return productRepository.save(product);
+        Product saved = saveUnique(product);
+        productIndexer.indexed(List.of(saved));
+        imageVariantService.generateAsync(saved.getImageUrl());
+        return saved;
+    }
+
+    private Product saveUnique(Product product) {
+        try {
+            return productRepository.save(product);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, DUPLICATE_MESSAGE);
+        }
     }
 
     public void delete(Long id) {
         Product product = findById(id);
         productRepository.delete(product);
+        productIndexer.removed(List.of(id));
     }
 
     public Page<Product> findByCategory(ProductCategory category, Pageable pageable) {
@@ -72,23 +147,68 @@ public class ProductService {
         return productRepository.findByBrandIgnoreCase(brand, pageable);
     }
 
-    public Page<Product> search(String query, ProductCategory category, Pageable pageable) {
+    public Page<ProductSummaryDTO> search(String query, ProductFilter filter, Pageable pageable) {
         boolean hasQuery = query != null && !query.trim().isEmpty();
+        ProductCategory category = filter.category();
         boolean hasCategory = category != null;
 
+        if (filter.hasAttributeFilters()) {
+            if (!productFilterIndex.isReady() || (hasQuery && !productSearchIndex.isReady())) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de productos en construcción");
+            }
+            if (hasQuery) {
+                return productSearchIndex.search(query, category, productFilterIndex.matcher(filter), pageable);
+            }
+            return productFilterIndex.search(filter, pageable);
+        }
+
+        if (hasQuery && productSearchIndex.isReady()) {
+            return productSearchIndex.search(query, category, pageable);
+        }
+
+        // Mientras el índice se construye al arrancar se usa la búsqueda en base de datos
         if (hasQuery && hasCategory) {
-            return productRepository.findByQueryAndCategory(query.trim(), category, pageable);
+            return productRepository.findByQueryAndCategory(query.trim(), category, pageable)
+                    .map(ProductSummaryDTO::from);
+        }
+
+        if (hasQuery) {
+            return productRepository.findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase(query, query, pageable)
+                    .map(ProductSummaryDTO::from);
         }
 
         if (hasCategory) {
-            return productRepository.findByCategory(category, pageable);
+            return productRepository.findSummaryByCategory(category, pageable);
         }
 
-        if (hasQuery) {
-            return productRepository.findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase(query, query, pageable);
+        return productRepository.findAllSummary(pageable);
+    }
+
+    public ProductFacetsDTO facets(String query, ProductFilter filter) {
+        boolean hasQuery = query != null && !query.trim().isEmpty();
+        if (!productFilterIndex.isReady() || (hasQuery && !productSearchIndex.isReady())) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de productos en construcción");
+        }
+        return productFilterIndex.facets(filter, hasQuery ? productSearchIndex.matchingIds(query) : null);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scrollSearch(String query, ProductFilter filter, String cursor, int size) {
+        if (!productSearchIndex.isReady() || !productFilterIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de productos en construcción");
+        }
+        if (query != null && !query.trim().isEmpty()) {
+            return productSearchIndex.scroll(query, filter.category(),
+                    filter.hasAttributeFilters() ? productFilterIndex.matcher(filter) : null,
+                    Cursor.decode(cursor, Cursor.Kind.RELEVANCE), size);
         }
+        return productFilterIndex.scroll(filter, Cursor.decode(cursor, Cursor.Kind.ID), size);
+    }
 
-        return productRepository.findAll(pageable);
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        if (!productSuggestIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de productos en construcción");
+        }
+        return productSuggestIndex.suggest(prefix, limit);
     }
 
     public Page<ProductSummaryDTO> findForRoutine(
@@ -98,20 +218,26 @@ public class ProductService {
             Set<Goal> goals,
             Pageable pageable) {
 
+        if (recommendsFromIndex(pageable)) {
+            return productRecommendationIndex.recommend(category, time, skinType, goals, pageable);
+        }
+
+        int skinTypeMask = EnumMask.of(skinType);
+        int goalMask = EnumMask.of(goals);
         Page<ProductSummaryDTO> results = productRepository.findRecommendationsFull(
-                category, time, skinType, goals, pageable);
+                category, time, skinTypeMask, goalMask, pageable);
 
         if (results.hasContent()) {
             return results;
         }
 
-        results = productRepository.findRecommendationsBySkinType(category, time, skinType, pageable);
+        results = productRepository.findRecommendationsBySkinType(category, time, skinTypeMask, pageable);
 
         if (results.hasContent()) {
             return results;
         }
 
-        results = productRepository.findRecommendationsByGoals(category, time, goals, pageable);
+        results = productRepository.findRecommendationsByGoals(category, time, goalMask, pageable);
 
         if (results.hasContent()) {
             return results;
@@ -137,12 +263,97 @@ public class ProductService {
         return findForRoutine(category, time, skinType, goals, pageable).getContent();
     }
 
+    // true si findForRoutineSimple responde desde el índice en memoria, sin consultar la base
+    public boolean recommendsFromIndex() {
+        return recommendsFromIndex(Pageable.unpaged());
+    }
+
+    private boolean recommendsFromIndex(Pageable pageable) {
+        return "memory".equalsIgnoreCase(recommendationBackend)
+                && productRecommendationIndex.isReady()
+                && productRecommendationIndex.supports(pageable.getSort());
+    }
+
+    // Primer producto recomendado por cada categoría, en el mismo orden
+    public List<Long> findTopForRoutine(
+            List<ProductCategory> categories,
+            ProductApplicationTime time,
+            SkinType skinType,
+            Set<Goal> goals) {
+
+        Pageable first = PageRequest.of(0, 1);
+        return categories.stream()
+                .map(category -> findForRoutine(category, time, skinType, goals, first))
+                .filter(Page::hasContent)
+                .map(page -> page.getContent().get(0).getId())
+                .toList();
+    }
+
     public Page<ProductSummaryDTO> findAllSummary(Pageable pageable) {
         return productRepository.findAllSummary(pageable);
     }
 
-    public ProductSummaryDTO findSummaryById(Long id) {
+    // Paginación por cursor sobre (clave de orden, id); category es opcional
+    public CursorPageDTO<ProductSummaryDTO> scrollSummaries(ProductCategory category, String sort, String cursor,
+            int size) {
+        Pageable window = PageRequest.of(0, size + 1);
+
+        if ("name".equals(sort)) {
+            Cursor after = Cursor.decode(cursor, Cursor.Kind.NAME);
+            String afterName = after != null ? after.key() : "";
+            long afterId = after != null ? after.id() : 0L;
+            List<ProductSummaryDTO> fetched = category == null
+                    ? productRepository.findSummaryAfterName(afterName, afterId, window)
+                    : productRepository.findSummaryByCategoryAfterName(category, afterName, afterId, window);
+            return CursorPageDTO.of(fetched, size, summary -> Cursor.ofName(summary.getName(), summary.getId()));
+        }
+
+        if ("id".equals(sort)) {
+            Cursor after = Cursor.decode(cursor, Cursor.Kind.ID);
+            long afterId = after != null ? after.id() : 0L;
+            List<ProductSummaryDTO> fetched = category == null
+                    ? productRepository.findSummaryAfterId(afterId, window)
+                    : productRepository.findSummaryByCategoryAfterId(category, afterId, window);
+            return CursorPageDTO.of(fetched, size, summary -> Cursor.of(summary.getId()));
+        }
+
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Orden no soportado: " + sort);
+    }
+
+    public Long findVersion(Long id) {
+        return productRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+    }
+
+    public VersionedProductSummaryDTO findSummaryById(Long id) {
         return productRepository.findSummaryById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
     }
+
+    // Una sola consulta IN; se respeta el orden pedido y los ids repetidos se devuelven una vez
+    public ProductSummaryBatchDTO findSummariesByIds(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(requested::add);
+        if (requested.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden pedir como máximo " + MAX_BATCH_IDS + " productos");
+        }
+        if (requested.isEmpty()) {
+            return new ProductSummaryBatchDTO(List.of(), List.of());
+        }
+
+        Map<Long, ProductSummaryDTO> found = new HashMap<>();
+        productRepository.findSummariesByIdIn(requested).forEach(summary -> found.put(summary.getId(), summary));
+        List<ProductSummaryDTO> products = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            ProductSummaryDTO summary = found.get(id);
+            if (summary != null) {
+                products.add(summary);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ProductSummaryBatchDTO(products, missing);
+    }
 }
\ No newline at end of file
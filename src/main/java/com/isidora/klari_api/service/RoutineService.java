@@ -1,27 +1,31 @@
 package com.isidora.klari_api.service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.dto.RoutineSummaryDTO;
 import com.isidora.klari_api.model.Product;
 import com.isidora.klari_api.model.Routine;
 import com.isidora.klari_api.model.User;
-import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductApplicationTime;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.RoutineType;
-import com.isidora.klari_api.model.enums.SkinType;
 import com.isidora.klari_api.repository.ProductRepository;
 import com.isidora.klari_api.repository.RoutineRepository;
 import com.isidora.klari_api.repository.UserRepository;
@@ -32,48 +36,92 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RoutineService {
 
+    private record InitialRoutine(
+            ProductApplicationTime time,
+            List<ProductCategory> categories,
+            String conflictMessage) {
+    }
+
+    private static final int MAX_ACTIVATE_ATTEMPTS = 3;
+
+    private static final Map<RoutineType, InitialRoutine> INITIAL_ROUTINES = new EnumMap<>(Map.of(
+            RoutineType.DIA, new InitialRoutine(
+                    ProductApplicationTime.DIA,
+                    List.of(ProductCategory.LIMPIADOR, ProductCategory.SERUM,
+                            ProductCategory.HIDRATANTE, ProductCategory.PROTECTOR_SOLAR),
+                    "Ya existe una rutina de día activa"),
+            RoutineType.NOCHE, new InitialRoutine(
+                    ProductApplicationTime.NOCHE,
+                    List.of(ProductCategory.LIMPIADOR, ProductCategory.SERUM, ProductCategory.HIDRATANTE),
+                    "Ya existe una rutina de noche activa")));
+
     private final RoutineRepository routineRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final ProductService productService;
+    private final TransactionTemplate transactionTemplate;
 
     public Routine create(Routine routine) {
         if (routine.getUser() == null || routine.getUser().getId() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La rutina debe tener user");
         }
         assertSelf(routine.getUser().getId());
-        return routineRepository.save(routine);
+        routine.setVersion(null);
+        return saveNew(routine, "Ya existe una rutina activa de ese tipo");
     }
 
-    public Optional<Routine> findById(Long id) {
+    // Lecturas: una consulta para las rutinas y otra para todos sus pasos, sin importar cuántas sean
+    @Transactional(readOnly = true)
+    public Optional<RoutineSummaryDTO> findById(Long id) {
         Optional<Routine> routine = routineRepository.findById(id);
         routine.ifPresent(this::assertOwner);
-        return routine;
+        return routine.map(found -> summaries(List.of(found)).get(0));
     }
 
-    public List<Routine> findByUserId(Long userId) {
+    @Transactional(readOnly = true)
+    public List<RoutineSummaryDTO> findByUserId(Long userId) {
         assertSelf(userId);
-        return routineRepository.findByUserId(userId);
+        return summaries(routineRepository.findByUserId(userId));
     }
 
-    public Optional<Routine> findActiveDayRoutine(Long userId) {
+    @Transactional(readOnly = true)
+    public Optional<RoutineSummaryDTO> findActiveDayRoutine(Long userId) {
         assertSelf(userId);
-        return routineRepository.findActiveRoutine(RoutineType.DIA, userId);
+        return routineRepository.findActiveRoutine(RoutineType.DIA, userId)
+                .map(routine -> summaries(List.of(routine)).get(0));
     }
 
-    public List<Routine> findInactiveDayRoutines(Long userId) {
+    @Transactional(readOnly = true)
+    public List<RoutineSummaryDTO> findInactiveDayRoutines(Long userId) {
         assertSelf(userId);
-        return routineRepository.findInactiveRoutines(RoutineType.DIA, userId);
+        return summaries(routineRepository.findInactiveRoutines(RoutineType.DIA, userId));
     }
 
-    public Optional<Routine> findActiveNightRoutine(Long userId) {
+    @Transactional(readOnly = true)
+    public Optional<RoutineSummaryDTO> findActiveNightRoutine(Long userId) {
         assertSelf(userId);
-        return routineRepository.findActiveRoutine(RoutineType.NOCHE, userId);
+        return routineRepository.findActiveRoutine(RoutineType.NOCHE, userId)
+                .map(routine -> summaries(List.of(routine)).get(0));
     }
 
-    public List<Routine> findInactiveNightRoutines(Long userId) {
+    @Transactional(readOnly = true)
+    public List<RoutineSummaryDTO> findInactiveNightRoutines(Long userId) {
         assertSelf(userId);
-        return routineRepository.findInactiveRoutines(RoutineType.NOCHE, userId);
+        return summaries(routineRepository.findInactiveRoutines(RoutineType.NOCHE, userId));
+    }
+
+    private List<RoutineSummaryDTO> summaries(List<Routine> routines) {
+        if (routines.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ProductSummaryDTO>> steps = new HashMap<>();
+        routineRepository.findStepsByRoutineIdIn(routines.stream().map(Routine::getId).toList())
+                .forEach(step -> steps.computeIfAbsent(step.getRoutineId(), id -> new ArrayList<>())
+                        .add(new ProductSummaryDTO(step.getId(), step.getName(), step.getBrand(),
+                                step.getImageUrl(), step.getCategory())));
+        return routines.stream()
+                .map(routine -> RoutineSummaryDTO.of(routine, steps.getOrDefault(routine.getId(), List.of())))
+                .toList();
     }
 
     @Transactional
@@ -111,67 +159,55 @@ public class RoutineService {
 
     @Transactional
     public Routine createInitialDayRoutine(Long userId) {
-        assertSelf(userId);
-
-        Optional<Routine> existingRoutine = routineRepository.findActiveRoutine(RoutineType.DIA, userId);
-        if (existingRoutine.isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya existe una rutina de día activa");
-        }
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
-
-        Routine routine = new Routine();
-        routine.setUser(user);
-        routine.setRoutineType(RoutineType.DIA);
-        routine.setActive(true);
-
-        addProductIfExists(routine, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, user);
-        addProductIfExists(routine, ProductCategory.SERUM, ProductApplicationTime.DIA, user);
-        addProductIfExists(routine, ProductCategory.HIDRATANTE, ProductApplicationTime.DIA, user);
-        addProductIfExists(routine, ProductCategory.PROTECTOR_SOLAR, ProductApplicationTime.DIA, user);
-
-        return routineRepository.save(routine);
+        return createInitialRoutine(userId, RoutineType.DIA);
     }
 
     @Transactional
     public Routine createInitialNightRoutine(Long userId) {
+        return createInitialRoutine(userId, RoutineType.NOCHE);
+    }
+
+    // Resuelve todas las categorías de una vez y carga los productos en una sola consulta
+    private Routine createInitialRoutine(Long userId, RoutineType routineType) {
         assertSelf(userId);
+        InitialRoutine template = INITIAL_ROUTINES.get(routineType);
 
-        Optional<Routine> existingRoutine = routineRepository.findActiveRoutine(RoutineType.NOCHE, userId);
-        if (existingRoutine.isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya existe una rutina de noche activa");
+        if (routineRepository.existsByUserIdAndRoutineTypeAndActiveTrue(userId, routineType)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, template.conflictMessage());
         }
 
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithGoalsById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
 
+        List<Long> productIds = productService.findTopForRoutine(
+                template.categories(), template.time(), user.getSkinType(), user.getGoals());
+
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllById(productIds)
+                    .forEach(product -> products.put(product.getId(), product));
+        }
+
         Routine routine = new Routine();
         routine.setUser(user);
-        routine.setRoutineType(RoutineType.NOCHE);
+        routine.setRoutineType(routineType);
         routine.setActive(true);
+        productIds.stream()
+                .distinct()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .forEach(routine.getProducts()::add);
 
-        addProductIfExists(routine, ProductCategory.LIMPIADOR, ProductApplicationTime.NOCHE, user);
-        addProductIfExists(routine, ProductCategory.SERUM, ProductApplicationTime.NOCHE, user);
-        addProductIfExists(routine, ProductCategory.HIDRATANTE, ProductApplicationTime.NOCHE, user);
-
-        return routineRepository.save(routine);
+        return saveNew(routine, template.conflictMessage());
     }
 
-    private void addProductIfExists(Routine routine, ProductCategory category,
-            ProductApplicationTime time, User user) {
-
-        SkinType skinType = user.getSkinType();
-        Set<Goal> goals = user.getGoals();
-        PageRequest pageRequest = PageRequest.of(0, 1);
-
-        Page<ProductSummaryDTO> recommendations = productService.findForRoutine(
-                category, time, skinType, goals, pageRequest);
-
-        if (recommendations.hasContent()) {
-            ProductSummaryDTO summary = recommendations.getContent().get(0);
-            productRepository.findById(summary.getId())
-                    .ifPresent(product -> routine.getProducts().add(product));
+    // El índice único parcial (user_id, routine_type) WHERE active rechaza la segunda rutina activa
+    // cuando dos pedidos pasan la verificación previa a la vez (doble toque, dos dispositivos)
+    private Routine saveNew(Routine routine, String conflictMessage) {
+        try {
+            return routineRepository.saveAndFlush(routine);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, conflictMessage);
         }
     }
 
@@ -184,13 +220,32 @@ public class RoutineService {
         routineRepository.save(routine);
     }
 
-    @Transactional
+    // Activa la rutina y desactiva la anterior del mismo tipo en la misma transacción. Si otra activación
+    // gana la carrera (índice único, versión o interbloqueo), se repite desde cero con el estado ya confirmado
     public void activate(Long routineId) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> activateOnce(routineId));
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt == MAX_ACTIVATE_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "La rutina se modificó al mismo tiempo en otro dispositivo, vuelve a intentarlo");
+                }
+            }
+        }
+    }
+
+    private void activateOnce(Long routineId) {
         Routine routine = findRoutineOrThrow(routineId);
         assertOwner(routine);
+        if (routine.isActive()) {
+            return;
+        }
 
+        routineRepository.deactivateOthers(routine.getUser().getId(), routine.getRoutineType(), routineId);
         routine.setActive(true);
-        routineRepository.save(routine);
+        routineRepository.saveAndFlush(routine);
     }
 
     private Long authUserId() {
@@ -220,4 +275,4 @@ public class RoutineService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No autorizado");
         }
     }
-}
\ No newline at end of file
+}
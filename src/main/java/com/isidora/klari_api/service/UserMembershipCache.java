@@ -0,0 +1,98 @@
+package com.isidora.klari_api.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isidora.klari_api.repository.UserJdbcRepository;
+import com.isidora.klari_api.repository.UserJdbcRepository.Membership;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipIds;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Favoritos e inventario de cada usuario como arreglos ordenados de ids, para
+ * responder "¿está guardado?" sobre una grilla completa sin ir a la base. Se
+ * cargan con una consulta la primera vez y las altas y bajas de
+ * {@link UserService} los actualizan al confirmar. Los arreglos no se
+ * modifican: cada cambio publica una copia.
+ */
+@Component
+public class UserMembershipCache {
+
+    private final UserJdbcRepository userJdbcRepository;
+    private final Cache<Long, MembershipIds> cache;
+
+    public UserMembershipCache(UserJdbcRepository userJdbcRepository, MeterRegistry meterRegistry,
+            @Value("${klari.membership-cache.max-ids:2000000}") long maxIds,
+            @Value("${klari.membership-cache.expire-after-access:1800}") long expireAfterAccess) {
+        this.userJdbcRepository = userJdbcRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .<Long, MembershipIds>weigher((userId, ids) -> 1 + ids.favorites().length + ids.inventory().length)
+                .expireAfterAccess(Duration.ofSeconds(expireAfterAccess))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.memberships");
+    }
+
+    public MembershipIds get(Long userId) {
+        return cache.get(userId, userJdbcRepository::findMembershipIds);
+    }
+
+    public static boolean contains(long[] ids, long productId) {
+        return Arrays.binarySearch(ids, productId) >= 0;
+    }
+
+    // Agregar y quitar son idempotentes: si una carga en curso ya vio el cambio, aplicarlo otra vez no
+    // altera nada, y si no lo vio, computeIfPresent espera a que termine y lo aplica encima
+    public void updateAfterCommit(Long userId, Membership membership, Collection<Long> added,
+            Collection<Long> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(userId, membership, added, removed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(userId, membership, added, removed);
+            }
+        });
+    }
+
+    private void update(Long userId, Membership membership, Collection<Long> added, Collection<Long> removed) {
+        cache.asMap().computeIfPresent(userId, (id, ids) -> {
+            boolean favorites = membership == Membership.FAVORITES;
+            long[] updated = apply(favorites ? ids.favorites() : ids.inventory(), added, removed);
+            return favorites ? new MembershipIds(updated, ids.inventory()) : new MembershipIds(ids.favorites(), updated);
+        });
+    }
+
+    private static long[] apply(long[] ids, Collection<Long> added, Collection<Long> removed) {
+        long[] updated = Arrays.copyOf(ids, ids.length + added.size());
+        int size = ids.length;
+        for (Long id : added) {
+            updated[size++] = id;
+        }
+        Arrays.sort(updated, 0, size);
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            boolean duplicate = kept > 0 && updated[kept - 1] == updated[i];
+            if (!duplicate && !removed.contains(updated[i])) {
+                updated[kept++] = updated[i];
+            }
+        }
+        return Arrays.copyOf(updated, kept);
+    }
+}
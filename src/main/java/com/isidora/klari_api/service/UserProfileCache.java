@@ -0,0 +1,63 @@
+package com.isidora.klari_api.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isidora.klari_api.dto.UserProfileDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Perfiles de usuario en memoria, acotados por cantidad. El perfil se lee en
+ * casi todas las pantallas y cambia poco; cada escritura lo invalida al
+ * confirmar su transacción.
+ */
+@Component
+public class UserProfileCache {
+
+    private final Cache<Long, UserProfileDTO> cache;
+
+    public UserProfileCache(MeterRegistry meterRegistry,
+            @Value("${klari.profile-cache.max-entries:10000}") long maxEntries,
+            @Value("${klari.profile-cache.expire-after-write:600}") long expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.profiles");
+    }
+
+    // Si loader devuelve null (usuario inexistente) no se guarda nada
+    public UserProfileDTO get(Long userId, Function<Long, UserProfileDTO> loader) {
+        return cache.get(userId, loader);
+    }
+
+    // Solo lo que ya está en memoria, sin cargar
+    public UserProfileDTO getIfPresent(Long userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    // Invalidar antes del commit dejaría que otra lectura guarde de nuevo el perfil viejo;
+    // si hay una carga en curso para el mismo usuario, Caffeine espera a que termine
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(userId);
+            }
+        });
+    }
+}
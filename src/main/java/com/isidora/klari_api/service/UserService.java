@@ -1,9 +1,18 @@
 package com.isidora.klari_api.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.IntSupplier;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -12,14 +21,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.MembershipBatchDTO;
+import com.isidora.klari_api.dto.MembershipBatchRequestDTO;
+import com.isidora.klari_api.dto.MembershipChangeDTO;
 import com.isidora.klari_api.dto.ProductSummaryDTO;
-import com.isidora.klari_api.model.Product;
-import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.dto.SavedStatusDTO;
+import com.isidora.klari_api.dto.UserProfileDTO;
 import com.isidora.klari_api.model.User;
 import com.isidora.klari_api.model.enums.Goal;
 import com.isidora.klari_api.model.enums.ProductCategory;
 import com.isidora.klari_api.model.enums.SkinType;
-import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.repository.UserJdbcRepository;
+import com.isidora.klari_api.repository.UserJdbcRepository.Membership;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipChanges;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipIds;
 import com.isidora.klari_api.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -28,8 +45,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final int MAX_BATCH_IDS = 500;
+
     private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final UserJdbcRepository userJdbcRepository;
+    private final UserProfileCache userProfileCache;
+    private final UserMembershipCache userMembershipCache;
 
     @Transactional(readOnly = true)
     public User findById(Long id) {
@@ -38,62 +59,141 @@ public class UserService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
     }
 
+    // Altas y bajas idempotentes: una sola sentencia sobre la tabla de unión; devuelven si hubo cambio
     @Transactional
-    public void addFavorite(Long userId, Long productId) {
+    public boolean addFavorite(Long userId, Long productId) {
         assertSelf(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
-        user.getFavorites().add(product);
+        boolean changed = insertMembership(() -> userRepository.insertFavorite(userId, productId));
+        userMembershipCache.updateAfterCommit(userId, Membership.FAVORITES, Set.of(productId), Set.of());
+        return changed;
     }
 
     @Transactional
-    public void addToInventory(Long userId, Long productId) {
+    public boolean addToInventory(Long userId, Long productId) {
         assertSelf(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
-        user.getInventory().add(product);
+        boolean changed = insertMembership(() -> userRepository.insertInventory(userId, productId));
+        userMembershipCache.updateAfterCommit(userId, Membership.INVENTORY, Set.of(productId), Set.of());
+        return changed;
     }
 
     @Transactional
-    public void removeFavorite(Long userId, Long productId) {
+    public boolean removeFavorite(Long userId, Long productId) {
         assertSelf(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
-        user.getFavorites().remove(product);
+        boolean changed = userRepository.deleteFavorite(userId, productId) > 0;
+        userMembershipCache.updateAfterCommit(userId, Membership.FAVORITES, Set.of(), Set.of(productId));
+        return changed;
     }
 
     @Transactional
-    public void removeFromInventory(Long userId, Long productId) {
+    public boolean removeFromInventory(Long userId, Long productId) {
         assertSelf(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
-        user.getInventory().remove(product);
+        boolean changed = userRepository.deleteInventory(userId, productId) > 0;
+        userMembershipCache.updateAfterCommit(userId, Membership.INVENTORY, Set.of(), Set.of(productId));
+        return changed;
     }
 
-    @Transactional(readOnly = true)
-    public SkinType getSkinType(Long id) {
-        assertSelf(id);
-        return findById(id).getSkinType();
+    // Lotes de altas y bajas (por ejemplo, al escanear la repisa) en una transacción y una sola sentencia
+    @Transactional
+    public MembershipBatchDTO updateFavorites(Long userId, MembershipBatchRequestDTO request) {
+        assertSelf(userId);
+        return applyBatch(Membership.FAVORITES, userId, request);
     }
 
-    @Transactional(readOnly = true)
-    public Set<Goal> getGoals(Long id) {
+    @Transactional
+    public MembershipBatchDTO updateInventory(Long userId, MembershipBatchRequestDTO request) {
+        assertSelf(userId);
+        return applyBatch(Membership.INVENTORY, userId, request);
+    }
+
+    private MembershipBatchDTO applyBatch(Membership membership, Long userId, MembershipBatchRequestDTO request) {
+        Set<Long> add = distinctIds(request.add());
+        Set<Long> remove = distinctIds(request.remove());
+        if (add.size() + remove.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden enviar como máximo " + MAX_BATCH_IDS + " productos");
+        }
+        if (!Collections.disjoint(add, remove)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Un producto no puede agregarse y quitarse en el mismo pedido");
+        }
+        if (add.isEmpty() && remove.isEmpty()) {
+            return new MembershipBatchDTO(List.of(), List.of(), List.of());
+        }
+
+        MembershipChanges changes = userJdbcRepository.apply(membership, userId, add, remove);
+        userMembershipCache.updateAfterCommit(userId, membership, changes.found(), remove);
+        List<MembershipChangeDTO> added = new ArrayList<>(add.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : add) {
+            if (changes.found().contains(id)) {
+                added.add(new MembershipChangeDTO(id, changes.added().contains(id)));
+            } else {
+                missing.add(id);
+            }
+        }
+        List<MembershipChangeDTO> removed = remove.stream()
+                .map(id -> new MembershipChangeDTO(id, changes.removed().contains(id)))
+                .toList();
+        return new MembershipBatchDTO(added, removed, missing);
+    }
+
+    private static Set<Long> distinctIds(List<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(distinct::add);
+        }
+        return distinct;
+    }
+
+    // El usuario es el autenticado, así que una violación de clave foránea significa producto inexistente
+    private static boolean insertMembership(IntSupplier insert) {
+        try {
+            return insert.getAsInt() > 0;
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado");
+        }
+    }
+
+    // Sin transacción: en un acierto de la caché no hace falta conexión
+    public UserProfileDTO getProfile(Long id) {
         assertSelf(id);
-        return findById(id).getGoals();
+        UserProfileDTO profile = userProfileCache.get(id, this::loadProfile);
+        if (profile == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado");
+        }
+        return profile;
     }
 
-    @Transactional(readOnly = true)
-    public List<Routine> getRoutines(Long id) {
+    // El perfil solo si ya está en la caché; no consulta la base
+    public Optional<UserProfileDTO> findCachedProfile(Long id) {
         assertSelf(id);
-        return findById(id).getRoutines();
+        return Optional.ofNullable(userProfileCache.getIfPresent(id));
+    }
+
+    public SkinType getSkinType(Long id) {
+        return getProfile(id).skinType();
+    }
+
+    public Set<Goal> getGoals(Long id) {
+        return getProfile(id).goals();
+    }
+
+    private UserProfileDTO loadProfile(Long id) {
+        return userRepository.findProfileById(id)
+                .map(view -> new UserProfileDTO(view.getId(), view.getUsername(), view.getEmail(),
+                        view.getSkinType(), parseGoals(view.getGoals())))
+                .orElse(null);
+    }
+
+    // El perfil cacheado es compartido: las metas no se pueden modificar
+    private static Set<Goal> parseGoals(String goals) {
+        EnumSet<Goal> parsed = EnumSet.noneOf(Goal.class);
+        if (goals != null && !goals.isEmpty()) {
+            for (String goal : goals.split(",")) {
+                parsed.add(Goal.valueOf(goal));
+            }
+        }
+        return Collections.unmodifiableSet(parsed);
     }
 
     @Transactional
@@ -102,6 +202,7 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
         user.setSkinType(skinType);
+        userProfileCache.evictAfterCommit(userId);
     }
 
     @Transactional
@@ -110,6 +211,7 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
         user.getGoals().add(goal);
+        userProfileCache.evictAfterCommit(userId);
     }
 
     @Transactional
@@ -118,6 +220,7 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
         user.getGoals().remove(goal);
+        userProfileCache.evictAfterCommit(userId);
     }
 
     private Long authUserId() {
@@ -161,15 +264,57 @@ public class UserService {
         return userRepository.findInventorySummariesByCategory(id, category, pageable);
     }
 
+    // Por cursor: del id más alto al más bajo, sin COUNT
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductSummaryDTO> scrollFavoriteSummaries(Long id, ProductCategory category,
+            String cursor, int size) {
+        assertSelf(id);
+        Cursor before = Cursor.decode(cursor, Cursor.Kind.ID);
+        long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        PageRequest window = PageRequest.of(0, size + 1);
+
+        List<ProductSummaryDTO> fetched = category == null
+                ? userRepository.findFavoriteSummariesBefore(id, beforeId, window)
+                : userRepository.findFavoriteSummariesByCategoryBefore(id, category, beforeId, window);
+        return CursorPageDTO.of(fetched, size, summary -> Cursor.of(summary.getId()));
+    }
+
     @Transactional(readOnly = true)
+    public CursorPageDTO<ProductSummaryDTO> scrollInventorySummaries(Long id, ProductCategory category,
+            String cursor, int size) {
+        assertSelf(id);
+        Cursor before = Cursor.decode(cursor, Cursor.Kind.ID);
+        long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        PageRequest window = PageRequest.of(0, size + 1);
+
+        List<ProductSummaryDTO> fetched = category == null
+                ? userRepository.findInventorySummariesBefore(id, beforeId, window)
+                : userRepository.findInventorySummariesByCategoryBefore(id, category, beforeId, window);
+        return CursorPageDTO.of(fetched, size, summary -> Cursor.of(summary.getId()));
+    }
+
+    // Consultas de pertenencia contra los ids en memoria; solo la primera por usuario va a la base
     public boolean isFavorite(Long userId, Long productId) {
         assertSelf(userId);
-        return userRepository.existsFavorite(userId, productId);
+        return UserMembershipCache.contains(userMembershipCache.get(userId).favorites(), productId);
     }
 
-    @Transactional(readOnly = true)
     public boolean isInInventory(Long userId, Long productId) {
         assertSelf(userId);
-        return userRepository.existsInInventory(userId, productId);
+        return UserMembershipCache.contains(userMembershipCache.get(userId).inventory(), productId);
+    }
+
+    public List<SavedStatusDTO> getSavedStatus(Long userId, List<Long> productIds) {
+        assertSelf(userId);
+        Set<Long> requested = distinctIds(productIds);
+        if (requested.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden consultar como máximo " + MAX_BATCH_IDS + " productos");
+        }
+        MembershipIds ids = userMembershipCache.get(userId);
+        return requested.stream()
+                .map(id -> new SavedStatusDTO(id, UserMembershipCache.contains(ids.favorites(), id),
+                        UserMembershipCache.contains(ids.inventory(), id)))
+                .toList();
     }
 }
\ No newline at end of file
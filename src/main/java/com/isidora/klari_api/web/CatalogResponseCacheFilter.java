@@ -0,0 +1,249 @@
+package com.isidora.klari_api.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isidora.klari_api.search.CatalogVersion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caché HTTP del catálogo público ({@code GET /api/products/**}). Las respuestas
+ * son iguales para todos los usuarios, así que salen con {@code Cache-Control:
+ * public} y {@code Vary} para un CDN o proxy, y además se guardan en memoria ya
+ * serializadas y comprimidas, con la URL normalizada y la versión del catálogo
+ * como clave. Cualquier escritura del catálogo invalida la caché completa.
+ */
+@Component
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/api/products";
+    private static final String EXPORT_PATH = PREFIX + "/export";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+    // Por debajo de este tamaño gzip no compensa la cabecera y el trabajo
+    private static final int MIN_COMPRESSED_BYTES = 256;
+
+    private record CachedResponse(String contentType, String etag, byte[] identity, byte[] gzip) {
+
+        int weight() {
+            return identity.length + (gzip != null ? gzip.length : 0) + 128;
+        }
+    }
+
+    private final CatalogVersion catalogVersion;
+    private final boolean enabled;
+    private final String cacheControl;
+    private final int maxEntryBytes;
+    private final Cache<String, CachedResponse> cache;
+    private volatile long cachedVersion = -1;
+
+    public CatalogResponseCacheFilter(CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+            @Value("${klari.http-cache.enabled:true}") boolean enabled,
+            @Value("${klari.http-cache.max-age:60}") long maxAge,
+            @Value("${klari.http-cache.stale-while-revalidate:300}") long staleWhileRevalidate,
+            @Value("${klari.http-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${klari.http-cache.max-entry-bytes:2097152}") int maxEntryBytes) {
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.cacheControl = "public, max-age=" + maxAge + ", stale-while-revalidate=" + staleWhileRevalidate;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, CachedResponse>weigher((key, value) -> value.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog.responses");
+    }
+
+    // Solo GET del catálogo; la exportación NDJSON se transmite en streaming y no se guarda
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        if (!path.equals(PREFIX) && !path.startsWith(PREFIX + "/")) {
+            return true;
+        }
+        if (path.equals(EXPORT_PATH)) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        // En la raíz, sin pedir JSON explícitamente puede responder la exportación
+        return path.equals(PREFIX)
+                ? accept == null || !accept.contains(MediaType.APPLICATION_JSON_VALUE) || accept.contains(NDJSON)
+                : accept != null && accept.contains(NDJSON);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long version = catalogVersion.current();
+        if (version != cachedVersion) {
+            cachedVersion = version;
+            cache.invalidateAll();
+        }
+        String key = version + " " + key(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        int status = wrapper.getStatus();
+        if (status == HttpServletResponse.SC_OK && isJson(wrapper.getContentType())) {
+            byte[] body = wrapper.getContentAsByteArray();
+            if (body.length <= maxEntryBytes) {
+                // Los controladores que ya ponen ETag (por ejemplo, con la versión del producto) lo conservan
+                String etag = wrapper.getHeader(HttpHeaders.ETAG);
+                CachedResponse entry = new CachedResponse(wrapper.getContentType(),
+                        etag != null ? etag : "W/\"" + digest(body) + "\"",
+                        body, body.length >= MIN_COMPRESSED_BYTES ? gzip(body) : null);
+                // Si el catálogo cambió mientras se atendía, la respuesta se envía pero no se guarda
+                if (catalogVersion.current() == version) {
+                    cache.put(key, entry);
+                }
+                write(entry, request, response);
+                return;
+            }
+        }
+        if (status == HttpServletResponse.SC_OK || status == HttpServletResponse.SC_NOT_MODIFIED) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(HttpHeaders.VARY, VARY);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(CachedResponse entry, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.VARY, VARY);
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = entry.identity();
+        if (entry.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            body = entry.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Ruta más parámetros ordenados por nombre; el orden de los valores de un mismo parámetro se respeta
+    private static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(path(request));
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            String name = URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8);
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isJson(String contentType) {
+        try {
+            return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Comparación débil, como pide If-None-Match
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals("*") || opaque(tag).equals(opaque));
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Compresión máxima: se paga una vez por versión del catálogo y se reutiliza en cada acierto
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
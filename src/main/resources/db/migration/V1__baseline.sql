@@ -0,0 +1,77 @@
+-- Esquema tal como lo generaba Hibernate con ddl-auto=update. En bases existentes
+-- esta versión se marca como aplicada (baseline-on-migrate) y no se ejecuta.
+
+CREATE TABLE products (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    name varchar(255) NOT NULL,
+    brand varchar(255) NOT NULL,
+    image_url varchar(200000),
+    ingredients varchar(200000),
+    description varchar(200000),
+    category varchar(255) NOT NULL CHECK (category IN ('LIMPIADOR', 'TONICO', 'HIDRATANTE', 'SERUM',
+        'PROTECTOR_SOLAR', 'MASCARILLA', 'CONTORNO_DE_OJOS')),
+    application_time varchar(255) NOT NULL CHECK (application_time IN ('DIA', 'NOCHE', 'AMBOS')),
+    CONSTRAINT products_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE product_goals (
+    product_id bigint NOT NULL,
+    goals varchar(255) CHECK (goals IN ('MANCHAS', 'TEXTURA', 'IRRITACION', 'LINEAS_EXPRESION', 'POROS'))
+);
+
+CREATE TABLE product_skin_types (
+    product_id bigint NOT NULL,
+    skin_types varchar(255) CHECK (skin_types IN ('GRASA', 'MIXTA', 'SECA', 'NORMAL', 'SENSIBLE'))
+);
+
+CREATE TABLE users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    username varchar(255) NOT NULL,
+    email varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    skin_type varchar(255) CHECK (skin_type IN ('GRASA', 'MIXTA', 'SECA', 'NORMAL', 'SENSIBLE')),
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT users_email_key UNIQUE (email)
+);
+
+CREATE TABLE user_goals (
+    user_id bigint NOT NULL,
+    goals varchar(255) CHECK (goals IN ('MANCHAS', 'TEXTURA', 'IRRITACION', 'LINEAS_EXPRESION', 'POROS'))
+);
+
+CREATE TABLE user_favorites (
+    user_id bigint NOT NULL,
+    product_id bigint NOT NULL,
+    CONSTRAINT user_favorites_pkey PRIMARY KEY (product_id, user_id)
+);
+
+CREATE TABLE user_inventory (
+    user_id bigint NOT NULL,
+    product_id bigint NOT NULL,
+    CONSTRAINT user_inventory_pkey PRIMARY KEY (product_id, user_id)
+);
+
+CREATE TABLE routines (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    routine_type varchar(255) NOT NULL CHECK (routine_type IN ('DIA', 'NOCHE')),
+    active boolean NOT NULL,
+    created_at timestamp(6),
+    user_id bigint NOT NULL,
+    CONSTRAINT routines_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE routine_products (
+    routine_id bigint NOT NULL,
+    product_id bigint NOT NULL
+);
+
+ALTER TABLE product_goals ADD CONSTRAINT FKsgon78gwk7t76rigf39rl5vsp FOREIGN KEY (product_id) REFERENCES products;
+ALTER TABLE product_skin_types ADD CONSTRAINT FK794xaj34d9sfj7gnvasb8kgfs FOREIGN KEY (product_id) REFERENCES products;
+ALTER TABLE routine_products ADD CONSTRAINT FKdpwsoy35va1ug3nk1g7soal7f FOREIGN KEY (product_id) REFERENCES products;
+ALTER TABLE routine_products ADD CONSTRAINT FKildokty1y6ebr3gm4b5amahav FOREIGN KEY (routine_id) REFERENCES routines;
+ALTER TABLE routines ADD CONSTRAINT FKlsu2ed1i9h7w7j9i3t5nhqyka FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE user_favorites ADD CONSTRAINT FKleu0dbk5w8y4vpn5tb7fnhrgv FOREIGN KEY (product_id) REFERENCES products;
+ALTER TABLE user_favorites ADD CONSTRAINT FK4sv7b9w9adr0fjnc4u10exlwm FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE user_goals ADD CONSTRAINT FKbqj3pc51g999b3nsxgqm3fyj9 FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE user_inventory ADD CONSTRAINT FK5ncurwlom7tk5hw560lb563xr FOREIGN KEY (product_id) REFERENCES products;
+ALTER TABLE user_inventory ADD CONSTRAINT FKdl20oug3qb2wki6g9824mbb9h FOREIGN KEY (user_id) REFERENCES users;
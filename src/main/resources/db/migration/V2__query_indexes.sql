@@ -0,0 +1,53 @@
+-- Índices para las consultas de ProductRepository, UserRepository y RoutineRepository,
+-- y claves primarias en las tablas de colecciones y de unión.
+
+-- products: filtros por igualdad seguidos del orden de paginación (id o name, id)
+CREATE INDEX products_category_id_idx ON products (category, id);
+CREATE INDEX products_category_name_id_idx ON products (category, name, id);
+CREATE INDEX products_application_time_id_idx ON products (application_time, id);
+CREATE INDEX products_category_application_time_id_idx ON products (category, application_time, id);
+CREATE INDEX products_name_id_idx ON products (name, id);
+-- findByBrandIgnoreCase compara LOWER(brand)
+CREATE INDEX products_lower_brand_id_idx ON products (lower(brand), id);
+-- Migración de imágenes: solo las filas que todavía guardan un data URI
+CREATE INDEX products_data_uri_image_id_idx ON products (id) WHERE image_url LIKE 'data:%';
+
+-- Colecciones de enums: sin nulos ni duplicados, con clave (dueño, valor)
+DELETE FROM product_goals WHERE goals IS NULL;
+DELETE FROM product_goals a USING product_goals b
+WHERE a.ctid < b.ctid AND a.product_id = b.product_id AND a.goals = b.goals;
+ALTER TABLE product_goals ALTER COLUMN goals SET NOT NULL;
+ALTER TABLE product_goals ADD CONSTRAINT product_goals_pkey PRIMARY KEY (product_id, goals);
+-- Recomendaciones: productos con alguna de las metas pedidas
+CREATE INDEX product_goals_goals_product_id_idx ON product_goals (goals, product_id);
+
+DELETE FROM product_skin_types WHERE skin_types IS NULL;
+DELETE FROM product_skin_types a USING product_skin_types b
+WHERE a.ctid < b.ctid AND a.product_id = b.product_id AND a.skin_types = b.skin_types;
+ALTER TABLE product_skin_types ALTER COLUMN skin_types SET NOT NULL;
+ALTER TABLE product_skin_types ADD CONSTRAINT product_skin_types_pkey PRIMARY KEY (product_id, skin_types);
+CREATE INDEX product_skin_types_skin_types_product_id_idx ON product_skin_types (skin_types, product_id);
+
+DELETE FROM user_goals WHERE goals IS NULL;
+DELETE FROM user_goals a USING user_goals b
+WHERE a.ctid < b.ctid AND a.user_id = b.user_id AND a.goals = b.goals;
+ALTER TABLE user_goals ALTER COLUMN goals SET NOT NULL;
+ALTER TABLE user_goals ADD CONSTRAINT user_goals_pkey PRIMARY KEY (user_id, goals);
+
+-- Favoritos e inventario se consultan por usuario: la clave empieza por user_id.
+-- El índice por producto cubre la clave foránea al borrar productos.
+ALTER TABLE user_favorites DROP CONSTRAINT user_favorites_pkey;
+ALTER TABLE user_favorites ADD CONSTRAINT user_favorites_pkey PRIMARY KEY (user_id, product_id);
+CREATE INDEX user_favorites_product_id_idx ON user_favorites (product_id);
+
+ALTER TABLE user_inventory DROP CONSTRAINT user_inventory_pkey;
+ALTER TABLE user_inventory ADD CONSTRAINT user_inventory_pkey PRIMARY KEY (user_id, product_id);
+CREATE INDEX user_inventory_product_id_idx ON user_inventory (product_id);
+
+-- Rutinas: activa / inactivas por usuario y tipo
+CREATE INDEX routines_user_id_routine_type_active_idx ON routines (user_id, routine_type, active);
+
+DELETE FROM routine_products a USING routine_products b
+WHERE a.ctid < b.ctid AND a.routine_id = b.routine_id AND a.product_id = b.product_id;
+ALTER TABLE routine_products ADD CONSTRAINT routine_products_pkey PRIMARY KEY (routine_id, product_id);
+CREATE INDEX routine_products_product_id_idx ON routine_products (product_id);
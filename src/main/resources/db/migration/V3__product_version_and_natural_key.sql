@@ -0,0 +1,48 @@
+-- Versión optimista y clave única (brand, name) de products, que V1 no tiene. Las bases
+-- que ddl-auto=update ya actualizó pueden traer la columna version, así que cada paso se
+-- salta si ya está hecho.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version bigint;
+UPDATE products SET version = 0 WHERE version IS NULL;
+ALTER TABLE products ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE products ALTER COLUMN version SET NOT NULL;
+
+-- Productos repetidos por marca y nombre: se conserva el de id más bajo y las referencias
+-- de favoritos, inventario y rutinas pasan a él antes de borrar los demás
+CREATE TEMPORARY TABLE product_duplicates ON COMMIT DROP AS
+SELECT p.id AS duplicate_id, k.id AS kept_id
+FROM products p
+JOIN (
+    SELECT brand, name, min(id) AS id
+    FROM products
+    GROUP BY brand, name
+    HAVING count(*) > 1
+) k ON k.brand = p.brand AND k.name = p.name AND p.id <> k.id;
+
+INSERT INTO user_favorites (user_id, product_id)
+SELECT f.user_id, d.kept_id
+FROM user_favorites f JOIN product_duplicates d ON d.duplicate_id = f.product_id
+ON CONFLICT DO NOTHING;
+DELETE FROM user_favorites f USING product_duplicates d WHERE f.product_id = d.duplicate_id;
+
+INSERT INTO user_inventory (user_id, product_id)
+SELECT i.user_id, d.kept_id
+FROM user_inventory i JOIN product_duplicates d ON d.duplicate_id = i.product_id
+ON CONFLICT DO NOTHING;
+DELETE FROM user_inventory i USING product_duplicates d WHERE i.product_id = d.duplicate_id;
+
+INSERT INTO routine_products (routine_id, product_id)
+SELECT r.routine_id, d.kept_id
+FROM routine_products r JOIN product_duplicates d ON d.duplicate_id = r.product_id
+ON CONFLICT DO NOTHING;
+DELETE FROM routine_products r USING product_duplicates d WHERE r.product_id = d.duplicate_id;
+
+DELETE FROM products p USING product_duplicates d WHERE p.id = d.duplicate_id;
+
+-- La clave única también sirve de índice a findByNaturalId (marca y nombre exactos)
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'products_brand_name_key') THEN
+        ALTER TABLE products ADD CONSTRAINT products_brand_name_key UNIQUE (brand, name);
+    END IF;
+END $$;
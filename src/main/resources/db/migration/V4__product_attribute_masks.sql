@@ -0,0 +1,45 @@
+-- Metas y tipos de piel de cada producto pasan de tablas de colección a máscaras de bits
+-- en products (bit 1 << ordinal del enum, ver EnumMask). El orden de los CASE debe
+-- coincidir con el de Goal y SkinType.
+
+ALTER TABLE products ADD COLUMN goals_mask integer DEFAULT 0 NOT NULL;
+ALTER TABLE products ADD COLUMN skin_types_mask integer DEFAULT 0 NOT NULL;
+
+UPDATE products p
+SET goals_mask = m.mask
+FROM (
+    SELECT product_id, bit_or(1 << CASE goals
+            WHEN 'MANCHAS' THEN 0
+            WHEN 'TEXTURA' THEN 1
+            WHEN 'IRRITACION' THEN 2
+            WHEN 'LINEAS_EXPRESION' THEN 3
+            WHEN 'POROS' THEN 4
+        END) AS mask
+    FROM product_goals
+    GROUP BY product_id
+) m
+WHERE m.product_id = p.id;
+
+UPDATE products p
+SET skin_types_mask = m.mask
+FROM (
+    SELECT product_id, bit_or(1 << CASE skin_types
+            WHEN 'GRASA' THEN 0
+            WHEN 'MIXTA' THEN 1
+            WHEN 'SECA' THEN 2
+            WHEN 'NORMAL' THEN 3
+            WHEN 'SENSIBLE' THEN 4
+        END) AS mask
+    FROM product_skin_types
+    GROUP BY product_id
+) m
+WHERE m.product_id = p.id;
+
+DROP TABLE product_goals;
+DROP TABLE product_skin_types;
+
+-- Recomendaciones: igualdad por categoría y momento, orden por id y las máscaras en la hoja
+-- del índice, así el COUNT de cada página se resuelve sin leer las filas
+DROP INDEX products_category_application_time_id_idx;
+CREATE INDEX products_category_application_time_id_idx
+    ON products (category, application_time, id) INCLUDE (skin_types_mask, goals_mask);
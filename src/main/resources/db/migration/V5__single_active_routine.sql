@@ -0,0 +1,14 @@
+-- Una sola rutina activa por usuario y tipo, garantizada por la base de datos.
+
+ALTER TABLE routines ADD COLUMN version bigint DEFAULT 0;
+
+-- Donde ya hay varias activas se conserva la más reciente
+UPDATE routines r
+SET active = false
+WHERE r.active
+  AND EXISTS (
+      SELECT 1 FROM routines o
+      WHERE o.user_id = r.user_id AND o.routine_type = r.routine_type AND o.active AND o.id > r.id
+  );
+
+CREATE UNIQUE INDEX routines_user_id_routine_type_active_key ON routines (user_id, routine_type) WHERE active;
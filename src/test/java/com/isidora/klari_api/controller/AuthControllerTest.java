@@ -0,0 +1,57 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.repository.UserRepository;
+import com.isidora.klari_api.security.JwtUtil;
+import com.isidora.klari_api.security.TokenVerifier;
+import com.isidora.klari_api.service.AuthService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuthControllerTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil("una-clave-de-prueba-de-al-menos-32-bytes", 60_000L);
+    // Tope de una sola revocación vigente para llegar al 503
+    private final TokenVerifier tokenVerifier = new TokenVerifier(jwtUtil, new SimpleMeterRegistry(), 100, 1);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new AuthController(new AuthService(mock(UserRepository.class),
+                    mock(PasswordEncoder.class), jwtUtil, tokenVerifier)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void logoutRevokesOnceAndRejectsMissingOrRevokedTokens() throws Exception {
+        String token = jwtUtil.generateToken(5L, "ana");
+
+        mvc.perform(post("/api/auth/logout"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.status").value(401));
+        mvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNoContent());
+        mvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void fullRevocationListIsServiceUnavailable() throws Exception {
+        mvc.perform(post("/api/auth/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(5L, "ana")))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(post("/api/auth/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(6L, "eva")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value(503));
+    }
+}
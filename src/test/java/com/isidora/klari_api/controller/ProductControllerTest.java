@@ -0,0 +1,142 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.isidora.klari_api.dto.VersionedProductSummaryDTO;
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
+import com.isidora.klari_api.service.ImageStorageService;
+import com.isidora.klari_api.service.ImageVariantService;
+import com.isidora.klari_api.service.ProductExportService;
+import com.isidora.klari_api.service.ProductImportService;
+import com.isidora.klari_api.service.ProductService;
+
+// Estados HTTP reales, con el manejador global de errores incluido
+class ProductControllerTest {
+
+    private static final String SERUM = """
+            {"name":"Serum","brand":"Klari","category":"SERUM","applicationTime":"AMBOS"}
+            """;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductService productService = new ProductService(productRepository, mock(ProductIndexer.class),
+            mock(ProductSearchIndex.class), mock(ProductSuggestIndex.class), mock(ProductFilterIndex.class),
+            mock(ProductRecommendationIndex.class), mock(ImageStorageService.class),
+            mock(ImageVariantService.class));
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new ProductController(productService, mock(ProductExportService.class),
+                    mock(ProductImportService.class)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void duplicateNaturalKeyIsAConflict() throws Exception {
+        when(productRepository.findByNaturalId("Klari", "Serum")).thenReturn(Optional.of(new Product()));
+
+        mvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON).content(SERUM))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.path").value("/api/products"));
+    }
+
+    // La clave única rechaza el INSERT de una alta simultánea: también 409, no 400
+    @Test
+    void uniqueKeyViolationOnSaveIsAConflict() throws Exception {
+        when(productRepository.findByNaturalId("Klari", "Serum")).thenReturn(Optional.empty());
+        when(productRepository.save(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("products_brand_name_key"));
+
+        mvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON).content(SERUM))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
+    // El ETag es "id-versión"; con If-None-Match vigente solo se consulta la versión
+    @Test
+    void currentEtagIsNotModifiedWithoutLoadingTheProduct() throws Exception {
+        when(productRepository.findById(5L)).thenReturn(Optional.of(product(5L, 3L)));
+        when(productRepository.findVersionById(5L)).thenReturn(Optional.of(3L));
+
+        mvc.perform(get("/api/products/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-3\""));
+
+        mvc.perform(get("/api/products/5").header(HttpHeaders.IF_NONE_MATCH, "\"5-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-3\""));
+        verify(productRepository).findById(5L);
+    }
+
+    @Test
+    void staleEtagReturnsTheSummaryWithTheNewEtag() throws Exception {
+        when(productRepository.findVersionById(5L)).thenReturn(Optional.of(4L));
+        when(productRepository.findSummaryById(5L)).thenReturn(Optional.of(
+                new VersionedProductSummaryDTO(5L, "Serum", "Klari", null, ProductCategory.SERUM, 4L)));
+
+        mvc.perform(get("/api/products/5/summary").header(HttpHeaders.IF_NONE_MATCH, "\"5-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-4\""))
+                .andExpect(jsonPath("$.name").value("Serum"));
+    }
+
+    // If-Match con otra versión u otro producto: 412 y no se escribe nada
+    @Test
+    void ifMatchWithAnotherVersionIsAPreconditionFailure() throws Exception {
+        when(productRepository.findById(5L)).thenReturn(Optional.of(product(5L, 3L)));
+        when(productRepository.findByNaturalId("Klari", "Serum")).thenReturn(Optional.empty());
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            Product saved = invocation.getArgument(0);
+            saved.setVersion(saved.getVersion() + 1);
+            return saved;
+        });
+
+        for (String stale : new String[] { "\"5-2\"", "\"6-3\"" }) {
+            mvc.perform(put("/api/products/5").header(HttpHeaders.IF_MATCH, stale)
+                    .contentType(MediaType.APPLICATION_JSON).content(SERUM))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.status").value(412));
+        }
+        verify(productRepository, never()).save(any(Product.class));
+
+        mvc.perform(put("/api/products/5").header(HttpHeaders.IF_MATCH, "\"5-3\"")
+                .contentType(MediaType.APPLICATION_JSON).content(SERUM))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-4\""));
+    }
+
+    private static Product product(Long id, Long version) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Serum");
+        product.setBrand("Klari");
+        product.setCategory(ProductCategory.SERUM);
+        product.setVersion(version);
+        return product;
+    }
+}
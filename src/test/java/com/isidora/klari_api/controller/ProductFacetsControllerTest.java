@@ -0,0 +1,110 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductDocument;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
+import com.isidora.klari_api.service.ImageStorageService;
+import com.isidora.klari_api.service.ImageVariantService;
+import com.isidora.klari_api.service.ProductExportService;
+import com.isidora.klari_api.service.ProductImportService;
+import com.isidora.klari_api.service.ProductService;
+
+// /facets con el índice de filtros real: cada faceta se cuenta con todos los filtros menos el suyo
+class ProductFacetsControllerTest {
+
+    private final ProductFilterIndex filterIndex = new ProductFilterIndex();
+    private final ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new ProductController(new ProductService(mock(ProductRepository.class),
+                    mock(ProductIndexer.class), searchIndex, mock(ProductSuggestIndex.class), filterIndex,
+                    mock(ProductRecommendationIndex.class), mock(ImageStorageService.class),
+                    mock(ImageVariantService.class)), mock(ProductExportService.class),
+                    mock(ProductImportService.class)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void eachFacetIgnoresItsOwnFilter() throws Exception {
+        filterIndex.rebuild(catalog());
+
+        mvc.perform(get("/api/products/facets").param("category", "SERUM").param("skinType", "GRASA")
+                .param("goals", "MANCHAS", "POROS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                // Piel grasa y cualquiera de las dos metas, sin mirar la categoría
+                .andExpect(jsonPath("$.categories.SERUM").value(2))
+                .andExpect(jsonPath("$.categories.LIMPIADOR").value(1))
+                .andExpect(jsonPath("$.categories.HIDRATANTE").value(0))
+                // Sérums con alguna de las metas, sin mirar la piel
+                .andExpect(jsonPath("$.skinTypes.GRASA").value(2))
+                .andExpect(jsonPath("$.skinTypes.SECA").value(1))
+                // Sérums de piel grasa con cualquier meta: las metas elegidas no se restringen entre sí
+                .andExpect(jsonPath("$.goals.MANCHAS").value(1))
+                .andExpect(jsonPath("$.goals.POROS").value(1))
+                .andExpect(jsonPath("$.goals.TEXTURA").value(0))
+                // El momento de uso no está filtrado: reparte el total
+                .andExpect(jsonPath("$.applicationTimes.DIA").value(1))
+                .andExpect(jsonPath("$.applicationTimes.NOCHE").value(1));
+    }
+
+    @Test
+    void queryRestrictsEveryFacet() throws Exception {
+        filterIndex.rebuild(catalog());
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.matchingIds("aqua")).thenReturn(Set.of(1L, 4L));
+
+        mvc.perform(get("/api/products/facets").param("q", "aqua").param("category", "SERUM"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.categories.SERUM").value(1))
+                .andExpect(jsonPath("$.categories.HIDRATANTE").value(1))
+                .andExpect(jsonPath("$.skinTypes.GRASA").value(1))
+                .andExpect(jsonPath("$.skinTypes.SECA").value(0));
+    }
+
+    @Test
+    void indexUnderConstructionIsUnavailable() throws Exception {
+        mvc.perform(get("/api/products/facets"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    private static List<ProductDocument> catalog() {
+        return List.of(
+                document(1L, ProductCategory.SERUM, ProductApplicationTime.DIA, Set.of(SkinType.GRASA),
+                        Set.of(Goal.MANCHAS)),
+                document(2L, ProductCategory.SERUM, ProductApplicationTime.NOCHE,
+                        Set.of(SkinType.SECA, SkinType.GRASA), Set.of(Goal.POROS)),
+                document(3L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, Set.of(SkinType.GRASA),
+                        Set.of(Goal.MANCHAS, Goal.TEXTURA)),
+                document(4L, ProductCategory.HIDRATANTE, ProductApplicationTime.AMBOS, Set.of(SkinType.SECA),
+                        Set.of()));
+    }
+
+    private static ProductDocument document(long id, ProductCategory category, ProductApplicationTime time,
+            Set<SkinType> skinTypes, Set<Goal> goals) {
+        return new ProductDocument(id, "Producto " + id, "Klari", null, "Aqua", category, time, goals, skinTypes);
+    }
+}
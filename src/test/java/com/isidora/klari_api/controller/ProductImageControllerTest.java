@@ -0,0 +1,93 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
+import com.isidora.klari_api.service.ImageStorageService;
+import com.isidora.klari_api.service.ImageVariantService;
+import com.isidora.klari_api.service.ProductExportService;
+import com.isidora.klari_api.service.ProductImportService;
+import com.isidora.klari_api.service.ProductService;
+
+// Imágenes en data URI al crear productos: estados HTTP reales con el almacén en un directorio temporal
+class ProductImageControllerTest {
+
+    private static final int MAX_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findByNaturalId(any(), any())).thenReturn(Optional.empty());
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ProductService productService = new ProductService(productRepository, mock(ProductIndexer.class),
+                mock(ProductSearchIndex.class), mock(ProductSuggestIndex.class), mock(ProductFilterIndex.class),
+                mock(ProductRecommendationIndex.class), new ImageStorageService(directory.toString(), MAX_BYTES),
+                mock(ImageVariantService.class));
+        mvc = MockMvcBuilders
+                .standaloneSetup(new ProductController(productService, mock(ProductExportService.class),
+                        mock(ProductImportService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void rasterImagesAreStoredAndOtherTypesAreUnsupported() throws Exception {
+        mvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON)
+                .content(product("data:image/png;base64," + base64("png"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imageUrl").value(Matchers.startsWith(ImageStorageService.URL_PREFIX)));
+
+        mvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON)
+                .content(product("data:image/svg+xml;base64," + base64("<svg onload=\"alert(1)\"/>"))))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(jsonPath("$.status").value(415));
+    }
+
+    @Test
+    void imagesOverTheLimitAreTooLarge() throws Exception {
+        mvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON)
+                .content(product("data:image/png;base64," + base64("x".repeat(MAX_BYTES + 1)))))
+                .andExpect(status().isContentTooLarge())
+                .andExpect(jsonPath("$.status").value(413));
+    }
+
+    private static String product(String imageUrl) {
+        return """
+                {"name":"Serum","brand":"Klari","category":"SERUM","applicationTime":"AMBOS","imageUrl":"%s"}
+                """.formatted(imageUrl);
+    }
+
+    private static String base64(String content) {
+        return Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
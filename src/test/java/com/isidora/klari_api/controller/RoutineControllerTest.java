@@ -0,0 +1,97 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.User;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.repository.RoutineRepository;
+import com.isidora.klari_api.repository.UserRepository;
+import com.isidora.klari_api.service.ProductService;
+import com.isidora.klari_api.service.RoutineService;
+
+class RoutineControllerTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final RoutineRepository routineRepository = mock(RoutineRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new RoutineController(new RoutineService(routineRepository,
+                    mock(ProductRepository.class), userRepository, mock(ProductService.class),
+                    transactionTemplate)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void initialRoutineWhenOneIsActiveIsAConflict() throws Exception {
+        when(routineRepository.existsByUserIdAndRoutineTypeAndActiveTrue(USER_ID, RoutineType.DIA)).thenReturn(true);
+
+        mvc.perform(post("/api/routines/user/7/day/initial"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("Ya existe una rutina de día activa"));
+    }
+
+    // Otra creación ganó la carrera entre la verificación y el INSERT: el índice único parcial responde
+    @Test
+    void initialRoutineLosingTheUniqueIndexIsAConflict() throws Exception {
+        User user = new User();
+        user.setId(USER_ID);
+        when(userRepository.findWithGoalsById(USER_ID)).thenReturn(Optional.of(user));
+        when(routineRepository.saveAndFlush(any(Routine.class)))
+                .thenThrow(new DataIntegrityViolationException("routines_user_id_routine_type_active_key"));
+
+        mvc.perform(post("/api/routines/user/7/night/initial"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Ya existe una rutina de noche activa"));
+    }
+
+    @Test
+    void activationThatKeepsLosingTheRaceIsAConflict() throws Exception {
+        doThrow(new CannotAcquireLockException("deadlock detected")).when(transactionTemplate)
+                .executeWithoutResult(any());
+
+        mvc.perform(patch("/api/routines/3/activate"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+    }
+}
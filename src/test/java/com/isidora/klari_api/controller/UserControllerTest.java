@@ -0,0 +1,68 @@
+package com.isidora.klari_api.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.isidora.klari_api.exception.GlobalExceptionHandler;
+import com.isidora.klari_api.repository.UserJdbcRepository;
+import com.isidora.klari_api.repository.UserRepository;
+import com.isidora.klari_api.service.HomeService;
+import com.isidora.klari_api.service.RoutineService;
+import com.isidora.klari_api.service.UserMembershipCache;
+import com.isidora.klari_api.service.UserProfileCache;
+import com.isidora.klari_api.service.UserService;
+
+class UserControllerTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new UserController(new UserService(userRepository, mock(UserJdbcRepository.class),
+                    mock(UserProfileCache.class), mock(UserMembershipCache.class)), mock(RoutineService.class),
+                    mock(HomeService.class)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void addingAnUnknownProductIsNotFound() throws Exception {
+        when(userRepository.insertFavorite(USER_ID, 99L))
+                .thenThrow(new DataIntegrityViolationException("user_favorites_product_id_fkey"));
+        when(userRepository.insertFavorite(USER_ID, 5L)).thenReturn(1);
+
+        mvc.perform(post("/api/users/7/favorites/5"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.changed").value(true));
+        mvc.perform(post("/api/users/7/favorites/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+        // Otro usuario: 403
+        mvc.perform(post("/api/users/8/favorites/5"))
+                .andExpect(status().isForbidden());
+    }
+}
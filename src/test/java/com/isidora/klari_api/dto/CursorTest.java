@@ -0,0 +1,50 @@
+package com.isidora.klari_api.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class CursorTest {
+
+    @Test
+    void roundTripsEachKind() {
+        assertEquals(Cursor.of(42L), Cursor.decode(Cursor.of(42L).encode(), Cursor.Kind.ID));
+        Cursor name = Cursor.ofName("Agua micelar 50%", 7L);
+        assertEquals(name, Cursor.decode(name.encode(), Cursor.Kind.NAME));
+        Cursor relevance = Cursor.ofRelevance(1.3333334f, 9L);
+        assertEquals(1.3333334f, Cursor.decode(relevance.encode(), Cursor.Kind.RELEVANCE).score());
+        assertNull(Cursor.decode(" ", Cursor.Kind.ID));
+    }
+
+    @Test
+    void rejectsCursorsFromAnotherOrder() {
+        assertBadRequest(Cursor.ofName("Serum", 3L).encode(), Cursor.Kind.RELEVANCE);
+        assertBadRequest(Cursor.of(3L).encode(), Cursor.Kind.RELEVANCE);
+        assertBadRequest(Cursor.ofRelevance(2f, 3L).encode(), Cursor.Kind.NAME);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertBadRequest("%%%", Cursor.Kind.ID);
+        assertBadRequest(encode("i\u00003x"), Cursor.Kind.ID);
+        assertBadRequest(encode("rNaN\u00003"), Cursor.Kind.RELEVANCE);
+        assertBadRequest(encode("runo\u00003"), Cursor.Kind.RELEVANCE);
+        assertBadRequest(encode("z\u00003"), Cursor.Kind.ID);
+    }
+
+    private static void assertBadRequest(String value, Cursor.Kind kind) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> Cursor.decode(value, kind));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,127 @@
+package com.isidora.klari_api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.repository.ProductJdbcRepository.Upserted;
+
+/**
+ * Varias importaciones simultáneas de las mismas filas contra PostgreSQL con
+ * las migraciones aplicadas (H2 no soporta ON CONFLICT ... DO UPDATE): cada
+ * (marca, nombre) queda una sola vez. Solo corre con KLARI_TEST_DB_URL
+ * definida; borra únicamente los productos que crea.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${KLARI_TEST_DB_URL}",
+        "spring.datasource.username=${KLARI_TEST_DB_USERNAME:postgres}",
+        "spring.datasource.password=${KLARI_TEST_DB_PASSWORD:postgres}",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "KLARI_TEST_DB_URL", matches = ".+")
+@Import(ProductJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductJdbcRepositoryUpsertTest {
+
+    private static final int THREADS = 8;
+    private static final int PRODUCTS = 300;
+
+    @Autowired
+    private ProductJdbcRepository productJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final String brand = "Estrés " + System.nanoTime();
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("DELETE FROM products WHERE brand = ?", brand);
+    }
+
+    @Test
+    void concurrentImportsOfTheSameRowsNeverDuplicateTheNaturalKey() throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicInteger updated = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                List<Product> products = new ArrayList<>();
+                for (int i = 0; i < PRODUCTS; i++) {
+                    products.add(product("Producto " + i, "Hilo " + thread));
+                }
+                // El orden de entrada no importa: el repositorio escribe en orden de clave
+                Collections.shuffle(products);
+                try {
+                    start.await();
+                    Upserted upserted = transaction.execute(status -> productJdbcRepository.upsertAll(products));
+                    inserted.addAndGet(upserted.insertedIds().size());
+                    updated.addAndGet(upserted.updatedIds().size());
+                    assertTrue(products.stream().allMatch(product -> product.getId() != null));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Fallas: " + failures);
+        assertEquals(PRODUCTS, inserted.get());
+        assertEquals(PRODUCTS * (THREADS - 1), updated.get());
+        assertEquals(PRODUCTS, jdbc.queryForObject(
+                "SELECT count(DISTINCT name) FROM products WHERE brand = ?", Integer.class, brand));
+        assertEquals(PRODUCTS, jdbc.queryForObject(
+                "SELECT count(*) FROM products WHERE brand = ?", Integer.class, brand));
+        assertEquals(THREADS - 1, jdbc.queryForObject(
+                "SELECT max(version) FROM products WHERE brand = ?", Integer.class, brand));
+    }
+
+    private Product product(String name, String description) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand(brand);
+        product.setDescription(description);
+        product.setCategory(ProductCategory.SERUM);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        return product;
+    }
+}
@@ -0,0 +1,136 @@
+package com.isidora.klari_api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.config.SecondLevelCacheConfig;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Sin transacción de prueba: la caché de segundo nivel solo se llena al hacer commit
+@DataJpaTest
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductSecondLevelCacheTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void repeatedFindByIdDoesNotIssueSql() {
+        Product saved = productRepository.save(product("Sérum calmante"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Primera lectura: va a la base de datos y llena la caché
+        transaction.executeWithoutResult(status -> productRepository.findById(saved.getId())
+                .orElseThrow().getGoals().size());
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            int goals = transaction.execute(status -> productRepository.findById(saved.getId())
+                    .orElseThrow().getGoals().size());
+            assertEquals(2, goals);
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 3);
+    }
+
+    @Test
+    void updateThroughJpaRefreshesCachedEntity() {
+        Product saved = productRepository.save(product("Tónico"));
+        productRepository.findById(saved.getId()).orElseThrow();
+
+        Product loaded = productRepository.findById(saved.getId()).orElseThrow();
+        loaded.setDescription("Nueva descripción");
+        productRepository.save(loaded);
+
+        assertEquals("Nueva descripción", productRepository.findById(saved.getId()).orElseThrow().getDescription());
+    }
+
+    @Test
+    void jdbcWritesAreEvicted() {
+        Product saved = productRepository.save(product("Limpiador"));
+        productRepository.findById(saved.getId()).orElseThrow();
+
+        ProductJdbcRepository jdbcRepository = new ProductJdbcRepository(
+                new NamedParameterJdbcTemplate(dataSource), entityManagerFactory);
+        // Lo mismo que escribe el upsert de la importación, que H2 no soporta
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> new JdbcTemplate(dataSource)
+                .update("UPDATE products SET description = ?, goals_mask = ?, version = version + 1 WHERE id = ?",
+                        "Actualizado por importación", EnumMask.of(Set.of(Goal.MANCHAS)), saved.getId()));
+        jdbcRepository.evictFromCache(List.of(saved.getId()));
+
+        statistics.clear();
+        Product reloaded = productRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("Actualizado por importación", reloaded.getDescription());
+        assertEquals(Set.of(Goal.MANCHAS), reloaded.getGoals());
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    void naturalIdLookupUsesCache() {
+        Product saved = productRepository.save(product("Protector solar"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> productRepository.findByNaturalId("Klari", "Protector solar"));
+        statistics.clear();
+
+        Long id = transaction.execute(status -> productRepository.findByNaturalId("Klari", "Protector solar")
+                .orElseThrow().getId());
+
+        assertEquals(saved.getId(), id);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand("Klari");
+        product.setCategory(ProductCategory.SERUM);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        product.setGoals(Set.of(Goal.POROS, Goal.TEXTURA));
+        product.setSkinTypes(Set.of(SkinType.GRASA));
+        return product;
+    }
+}
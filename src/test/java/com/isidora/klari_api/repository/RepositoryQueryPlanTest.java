@@ -0,0 +1,378 @@
+package com.isidora.klari_api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.enums.EnumMask;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Ejecuta las consultas de los repositorios contra un PostgreSQL local con las
+ * migraciones aplicadas y datos sintéticos, y falla si algún plan recorre
+ * secuencialmente con filtro una tabla de más de KLARI_TEST_SEQ_SCAN_ROWS filas.
+ * Solo corre con KLARI_TEST_DB_URL definida y sobre una base vacía y dedicada:
+ * al terminar vacía todas las tablas.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${KLARI_TEST_DB_URL}",
+        "spring.datasource.username=${KLARI_TEST_DB_USERNAME:postgres}",
+        "spring.datasource.password=${KLARI_TEST_DB_PASSWORD:postgres}",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "KLARI_TEST_DB_URL", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryQueryPlanTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int USERS = 2_000;
+
+    // Consultas que recorren la tabla a propósito
+    private static final Map<String, String> EXPECTED_SCANS = Map.of(
+            "findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase",
+            "búsqueda por subcadena; con el índice en memoria listo no se usa",
+            "findByQueryAndCategory",
+            "búsqueda por subcadena; con el índice en memoria listo no se usa");
+
+    private static final ObjectMapper JSON = JsonMapper.builder().build();
+    private static final Pattern EXPLAINABLE = Pattern.compile("\\s*(select|with|insert|update|delete)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final List<Plan> PLANS = new CopyOnWriteArrayList<>();
+    private static volatile boolean capturing;
+
+    private record Plan(String sql, String json) {
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        // Cada sentencia que se ejecuta mientras se captura se repite antes como EXPLAIN con los mismos
+        // parámetros; sin ANALYZE, el EXPLAIN de un INSERT o DELETE no modifica nada
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof ExplainingDataSource)
+                            ? new ExplainingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                            return explaining(connection, statement, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            List<Object[]> parameters = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2
+                                && method.getParameterTypes()[0] == int.class) {
+                            parameters.add(new Object[] { method, args });
+                        } else if (name.equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (capturing && (args == null || args.length == 0)
+                                && (name.equals("executeQuery") || name.equals("execute")
+                                        || name.equals("executeUpdate"))
+                                && EXPLAINABLE.matcher(sql).lookingAt()) {
+                            PLANS.add(new Plan(sql, explain(connection, sql, parameters)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static String explain(Connection connection, String sql, List<Object[]> parameters)
+                throws Throwable {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+                for (Object[] parameter : parameters) {
+                    invoke(explain, (Method) parameter[0], (Object[]) parameter[1]);
+                }
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoutineRepository routineRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("""
+                TRUNCATE routine_products, routines, user_favorites, user_inventory, user_goals, users,
+                         products RESTART IDENTITY
+                """);
+    }
+
+    @Test
+    void repositoryQueriesAvoidSequentialScans() {
+        Integer existing = jdbc.queryForObject("SELECT count(*) FROM products", Integer.class);
+        Assumptions.assumeTrue(existing != null && existing == 0, "La base de pruebas debe estar vacía");
+        seed();
+        Map<String, Double> tableRows = new HashMap<>();
+        jdbc.query("SELECT relname, reltuples FROM pg_class WHERE relkind = 'r'",
+                rs -> {
+                    tableRows.put(rs.getString(1), rs.getDouble(2));
+                });
+        long threshold = Long.parseLong(System.getenv().getOrDefault("KLARI_TEST_SEQ_SCAN_ROWS", "1000"));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<String> violations = new ArrayList<>();
+        queries().forEach((name, query) -> {
+            PLANS.clear();
+            capturing = true;
+            try {
+                transaction.executeWithoutResult(status -> query.run());
+            } finally {
+                capturing = false;
+            }
+            assertFalse(PLANS.isEmpty(), name + " no ejecutó ninguna consulta");
+            if (EXPECTED_SCANS.containsKey(name)) {
+                return;
+            }
+            for (Plan plan : PLANS) {
+                List<String> scanned = new ArrayList<>();
+                collectFilteredSeqScans(JSON.readTree(plan.json()).get(0).get("Plan"), scanned);
+                scanned.stream()
+                        .filter(table -> tableRows.getOrDefault(table, 0d) > threshold)
+                        .forEach(table -> violations.add(name + ": Seq Scan sobre " + table + "\n    " + plan.sql()));
+            }
+        });
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private Map<String, Runnable> queries() {
+        Long userId = jdbc.queryForObject("SELECT min(id) FROM users", Long.class);
+        Long productId = jdbc.queryForObject("SELECT min(id) + 4242 FROM products", Long.class);
+        Pageable page = PageRequest.of(0, 20, Sort.by("id"));
+        Pageable window = PageRequest.of(0, 21);
+        ProductCategory category = ProductCategory.SERUM;
+        ProductApplicationTime time = ProductApplicationTime.NOCHE;
+        int skinTypeMask = EnumMask.of(SkinType.GRASA);
+        int goalMask = EnumMask.of(Set.of(Goal.POROS, Goal.TEXTURA));
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findById", () -> productRepository.findById(productId).orElseThrow().getGoals().size());
+        queries.put("findAllById",
+                () -> productRepository.findAllById(List.of(productId, productId + 1)));
+        queries.put("findByCategory", () -> productRepository.findByCategory(category, page));
+        queries.put("findByApplicationTime", () -> productRepository.findByApplicationTime(time, page));
+        queries.put("findByBrandIgnoreCase", () -> productRepository.findByBrandIgnoreCase("marca 7", page));
+        queries.put("findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase",
+                () -> productRepository.findByNameContainingIgnoreCaseOrBrandContainingIgnoreCase("42", "42", page));
+        queries.put("findByQueryAndCategory", () -> productRepository.findByQueryAndCategory("42", category, page));
+        queries.put("findByNaturalId", () -> productRepository.findByNaturalId("Marca 7", "Producto 7"));
+        queries.put("findAllSummary", () -> productRepository.findAllSummary(page));
+        queries.put("findSummaryByCategory", () -> productRepository.findSummaryByCategory(category, page));
+        queries.put("findSummaryById", () -> productRepository.findSummaryById(productId));
+        queries.put("findSummariesByIdIn",
+                () -> productRepository.findSummariesByIdIn(List.of(productId, productId + 7, productId + 11)));
+        queries.put("findRecommendationsFull",
+                () -> productRepository.findRecommendationsFull(category, time, skinTypeMask, goalMask, page));
+        queries.put("findRecommendationsBySkinType",
+                () -> productRepository.findRecommendationsBySkinType(category, time, skinTypeMask, page));
+        queries.put("findRecommendationsByGoals",
+                () -> productRepository.findRecommendationsByGoals(category, time, goalMask, page));
+        queries.put("findRecommendationsByCategoryAndTime",
+                () -> productRepository.findRecommendationsByCategoryAndTime(category, time, page));
+        queries.put("findSummaryAfterId", () -> productRepository.findSummaryAfterId(productId, window));
+        queries.put("findSummaryAfterName",
+                () -> productRepository.findSummaryAfterName("Producto 5", productId, window));
+        queries.put("findSummaryByCategoryAfterId",
+                () -> productRepository.findSummaryByCategoryAfterId(category, productId, window));
+        queries.put("findSummaryByCategoryAfterName",
+                () -> productRepository.findSummaryByCategoryAfterName(category, "Producto 5", productId, window));
+        queries.put("findVersionById", () -> productRepository.findVersionById(productId));
+        queries.put("findIdsAfter", () -> productRepository.findIdsAfter(productId, PageRequest.ofSize(500)));
+        queries.put("findIdsWithDataUriImageAfter",
+                () -> productRepository.findIdsWithDataUriImageAfter(0L, PageRequest.ofSize(50)));
+        queries.put("findImageUrlById", () -> productRepository.findImageUrlById(productId));
+
+        queries.put("findByEmail", () -> userRepository.findByEmail("usuario7@klari.test"));
+        queries.put("existsByEmail", () -> userRepository.existsByEmail("usuario7@klari.test"));
+        queries.put("findWithGoalsById", () -> userRepository.findWithGoalsById(userId));
+        queries.put("findProfileById", () -> userRepository.findProfileById(userId));
+        queries.put("findFavoriteSummaries", () -> userRepository.findFavoriteSummaries(userId, page));
+        queries.put("findInventorySummaries", () -> userRepository.findInventorySummaries(userId, page));
+        queries.put("findFavoriteSummariesByCategory",
+                () -> userRepository.findFavoriteSummariesByCategory(userId, category, page));
+        queries.put("findInventorySummariesByCategory",
+                () -> userRepository.findInventorySummariesByCategory(userId, category, page));
+        queries.put("findFavoriteSummariesBefore",
+                () -> userRepository.findFavoriteSummariesBefore(userId, Long.MAX_VALUE, window));
+        queries.put("findFavoriteSummariesByCategoryBefore",
+                () -> userRepository.findFavoriteSummariesByCategoryBefore(userId, category, Long.MAX_VALUE, window));
+        queries.put("findInventorySummariesBefore",
+                () -> userRepository.findInventorySummariesBefore(userId, Long.MAX_VALUE, window));
+        queries.put("findInventorySummariesByCategoryBefore",
+                () -> userRepository.findInventorySummariesByCategoryBefore(userId, category, Long.MAX_VALUE, window));
+        queries.put("insertFavorite", () -> userRepository.insertFavorite(userId, productId));
+        queries.put("deleteFavorite", () -> userRepository.deleteFavorite(userId, productId));
+        queries.put("insertInventory", () -> userRepository.insertInventory(userId, productId));
+        queries.put("deleteInventory", () -> userRepository.deleteInventory(userId, productId));
+        UserJdbcRepository userJdbcRepository = new UserJdbcRepository(new NamedParameterJdbcTemplate(jdbc));
+        queries.put("applyMembershipChanges", () -> userJdbcRepository.apply(UserJdbcRepository.Membership.FAVORITES,
+                userId, List.of(productId, productId + 1, -1L), List.of(productId + 2, productId + 3)));
+        queries.put("findMembershipIds", () -> userJdbcRepository.findMembershipIds(userId));
+
+        queries.put("findByUserId", () -> routineRepository.findByUserId(userId));
+        queries.put("findStepsByRoutineIdIn", () -> routineRepository.findStepsByRoutineIdIn(
+                routineRepository.findByUserId(userId).stream().map(Routine::getId).toList()));
+        queries.put("findActiveRoutine", () -> routineRepository.findActiveRoutine(RoutineType.DIA, userId));
+        queries.put("findInactiveRoutines", () -> routineRepository.findInactiveRoutines(RoutineType.DIA, userId));
+        queries.put("existsByUserIdAndRoutineTypeAndActiveTrue",
+                () -> routineRepository.existsByUserIdAndRoutineTypeAndActiveTrue(userId, RoutineType.NOCHE));
+        queries.put("deactivateOthers", () -> routineRepository.deactivateOthers(userId, RoutineType.DIA, 0L));
+        return queries;
+    }
+
+    private static void collectFilteredSeqScans(JsonNode node, List<String> tables) {
+        // Un Seq Scan sin filtro lee la tabla porque la consulta la pide entera
+        if ("Seq Scan".equals(node.path("Node Type").asString()) && node.has("Filter")) {
+            tables.add(node.path("Relation Name").asString());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectFilteredSeqScans(child, tables);
+        }
+    }
+
+    private void seed() {
+        jdbc.update("""
+                INSERT INTO products (name, brand, image_url, ingredients, description, category, application_time,
+                                      goals_mask, skin_types_mask, version)
+                SELECT 'Producto ' || g, 'Marca ' || (g % 400),
+                       CASE WHEN g % 1000 = 0 THEN 'data:image/png;base64,AAAA' ELSE '/api/images/' || md5(g::text) END,
+                       'Aqua, Glycerin, Niacinamide', 'Descripción ' || g,
+                       (ARRAY['LIMPIADOR', 'TONICO', 'HIDRATANTE', 'SERUM', 'PROTECTOR_SOLAR', 'MASCARILLA',
+                              'CONTORNO_DE_OJOS'])[1 + g % 7],
+                       (ARRAY['DIA', 'NOCHE', 'AMBOS'])[1 + g % 3],
+                       (1 << (g % 5)) | (1 << (g / 5 % 5)), 1 << (g % 5), 0
+                FROM generate_series(1, ?) g
+                """, PRODUCTS);
+        jdbc.update("""
+                INSERT INTO users (username, email, password, skin_type)
+                SELECT 'usuario' || g, 'usuario' || g || '@klari.test', 'x', 'GRASA'
+                FROM generate_series(1, ?) g
+                """, USERS);
+        jdbc.update("INSERT INTO user_goals (user_id, goals) SELECT id, 'POROS' FROM users");
+        for (String table : List.of("user_favorites", "user_inventory")) {
+            jdbc.update("""
+                    INSERT INTO %s (user_id, product_id)
+                    SELECT u.id, p.first + (u.id * 37 + g * 101) %% ?
+                    FROM users u, generate_series(1, 20) g, (SELECT min(id) AS first FROM products) p
+                    ON CONFLICT DO NOTHING
+                    """.formatted(table), PRODUCTS);
+        }
+        jdbc.update("""
+                INSERT INTO routines (routine_type, active, created_at, user_id)
+                SELECT t, a, now(), u.id
+                FROM users u, unnest(ARRAY['DIA', 'NOCHE']) t, unnest(ARRAY[true, false, false]) a
+                """);
+        jdbc.update("""
+                INSERT INTO routine_products (routine_id, product_id)
+                SELECT r.id, p.first + (r.id * 13 + g * 7) % ?
+                FROM routines r, generate_series(1, 5) g, (SELECT min(id) AS first FROM products) p
+                ON CONFLICT DO NOTHING
+                """, PRODUCTS);
+        jdbc.execute("ANALYZE");
+    }
+}
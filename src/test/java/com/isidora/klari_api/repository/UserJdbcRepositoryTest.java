@@ -0,0 +1,127 @@
+package com.isidora.klari_api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.repository.UserJdbcRepository.Membership;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipChanges;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipIds;
+
+/**
+ * Altas y bajas masivas de favoritos e inventario contra PostgreSQL con las
+ * migraciones aplicadas (H2 no soporta la CTE con INSERT y DELETE ni
+ * {@code = ANY} sobre arreglos). Solo corre con KLARI_TEST_DB_URL definida;
+ * borra únicamente lo que crea.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${KLARI_TEST_DB_URL}",
+        "spring.datasource.username=${KLARI_TEST_DB_USERNAME:postgres}",
+        "spring.datasource.password=${KLARI_TEST_DB_PASSWORD:postgres}",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "KLARI_TEST_DB_URL", matches = ".+")
+@Import(UserJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserJdbcRepositoryTest {
+
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final String brand = "Lote " + System.nanoTime();
+    private Long userId;
+    private Long first;
+    private Long second;
+    private Long third;
+
+    @BeforeEach
+    void setUp() {
+        userId = jdbc.queryForObject(
+                "INSERT INTO users (username, email, password) VALUES (?, ?, 'x') RETURNING id", Long.class,
+                brand, brand.replace(' ', '.') + "@klari.test");
+        first = productRepository.save(product("Uno")).getId();
+        second = productRepository.save(product("Dos")).getId();
+        third = productRepository.save(product("Tres")).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("DELETE FROM user_favorites WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM user_inventory WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM users WHERE id = ?", userId);
+        jdbc.update("DELETE FROM products WHERE brand = ?", brand);
+    }
+
+    @Test
+    void batchReportsAddedRemovedAndExistingProducts() {
+        // Un id inexistente no corta el lote: queda fuera de found
+        MembershipChanges changes = apply(Membership.FAVORITES, List.of(first, second, -1L), List.of());
+        assertEquals(Set.of(first, second), changes.added());
+        assertEquals(Set.of(), changes.removed());
+        assertEquals(Set.of(first, second), changes.found());
+
+        // Lo que ya estaba no se vuelve a contar como alta; quitar lo ausente no cuenta como baja
+        changes = apply(Membership.FAVORITES, List.of(first), List.of(second, third));
+        assertEquals(Set.of(), changes.added());
+        assertEquals(Set.of(second), changes.removed());
+        assertEquals(Set.of(first), changes.found());
+
+        changes = apply(Membership.FAVORITES, List.of(), List.of());
+        assertEquals(new MembershipChanges(Set.of(), Set.of(), Set.of()), changes);
+    }
+
+    @Test
+    void favoritesAndInventoryAreKeptApart() {
+        apply(Membership.FAVORITES, List.of(third, first), List.of());
+        apply(Membership.INVENTORY, List.of(second), List.of());
+        apply(Membership.INVENTORY, List.of(), List.of(first));
+
+        MembershipIds ids = userJdbcRepository.findMembershipIds(userId);
+        assertArrayEquals(new long[] { first, third }, ids.favorites());
+        assertArrayEquals(new long[] { second }, ids.inventory());
+    }
+
+    private MembershipChanges apply(Membership membership, List<Long> add, List<Long> remove) {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> userJdbcRepository.apply(membership, userId, add, remove));
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(ProductCategory.SERUM);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        return product;
+    }
+}
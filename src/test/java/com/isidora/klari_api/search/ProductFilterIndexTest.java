@@ -0,0 +1,172 @@
+package com.isidora.klari_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ProductFacetsDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+class ProductFilterIndexTest {
+
+    private final ProductFilterIndex index = new ProductFilterIndex();
+
+    @Test
+    void filtersByEnumsAndIngredientTerms() {
+        index.rebuild(catalog());
+
+        assertEquals(List.of(1L, 3L), ids(new ProductFilter(null, ProductApplicationTime.DIA, null, null, null,
+                null)));
+        assertEquals(List.of(2L, 4L), ids(new ProductFilter(null, null, SkinType.SECA, null, null, null)));
+        // Metas: basta con una de las pedidas
+        assertEquals(List.of(1L, 2L, 3L), ids(new ProductFilter(null, null, null,
+                Set.of(Goal.MANCHAS, Goal.POROS), null, null)));
+        // "acid" como palabra completa, en cualquier ingrediente
+        assertEquals(List.of(1L, 3L), ids(include("acid")));
+        // Varias palabras: seguidas y en orden
+        assertEquals(List.of(3L), ids(include("Salicylic Acid")));
+        assertEquals(List.of(), ids(include("acid salicylic")));
+        // Palabras parciales no cuentan, y los alias entre paréntesis sí
+        assertEquals(List.of(), ids(include("glyc")));
+        assertEquals(List.of(2L), ids(include("fragrance")));
+        assertEquals(List.of(1L, 4L), ids(new ProductFilter(null, null, null, null, Set.of("aqua"),
+                Set.of("salicylic acid", "parfum"))));
+    }
+
+    @Test
+    void facetsCountEveryValueWithoutItsOwnFilter() {
+        index.rebuild(catalog());
+
+        ProductFacetsDTO facets = index.facets(new ProductFilter(ProductCategory.SERUM, null, SkinType.GRASA, null,
+                null, null), null);
+
+        assertEquals(2, facets.total());
+        // Categorías con el filtro de piel grasa pero sin el de categoría
+        assertEquals(2L, facets.categories().get(ProductCategory.SERUM));
+        assertEquals(1L, facets.categories().get(ProductCategory.LIMPIADOR));
+        // Tipos de piel con el filtro de categoría pero sin el de piel
+        assertEquals(2L, facets.skinTypes().get(SkinType.GRASA));
+        assertEquals(1L, facets.skinTypes().get(SkinType.SECA));
+
+        ProductFacetsDTO restricted = index.facets(ProductFilter.byCategory(null), List.of(2L, 4L, 99L));
+        assertEquals(2, restricted.total());
+        assertEquals(1L, restricted.applicationTimes().get(ProductApplicationTime.NOCHE));
+        assertEquals(1L, restricted.applicationTimes().get(ProductApplicationTime.AMBOS));
+    }
+
+    @Test
+    void pagesScrollAndMatcherFollowIdOrder() {
+        index.rebuild(catalog());
+        ProductFilter all = ProductFilter.byCategory(null);
+
+        assertEquals(List.of(3L, 4L), index.search(all, PageRequest.of(1, 2)).map(ProductSummaryDTO::getId)
+                .getContent());
+        CursorPageDTO<ProductSummaryDTO> first = index.scroll(all, null, 3);
+        assertTrue(first.hasNext());
+        CursorPageDTO<ProductSummaryDTO> second = index.scroll(all,
+                Cursor.decode(first.nextCursor(), Cursor.Kind.ID), 3);
+        assertEquals(List.of(4L), second.content().stream().map(ProductSummaryDTO::getId).toList());
+        assertFalse(second.hasNext());
+
+        LongPredicate matcher = index.matcher(include("niacinamide"));
+        assertTrue(matcher.test(2L));
+        assertFalse(matcher.test(1L));
+        assertFalse(matcher.test(99L));
+    }
+
+    @Test
+    void churnKeepsIngredientLookupsCorrect() {
+        index.rebuild(catalog());
+
+        // Cada vuelta borra y vuelve a crear productos con ingredientes nuevos
+        for (long round = 0; round < 200; round++) {
+            long id = 100 + round;
+            index.upsertAll(List.of(document(id, ProductCategory.TONICO, ProductApplicationTime.AMBOS, Set.of(),
+                    Set.of(), "Aqua, Extracto " + round)));
+            index.removeAll(List.of(id));
+        }
+        index.upsertAll(List.of(document(500L, ProductCategory.TONICO, ProductApplicationTime.AMBOS, Set.of(),
+                Set.of(), "Aqua, Extracto final")));
+        index.removeAll(List.of(1L));
+
+        assertEquals(List.of(4L, 500L), ids(include("aqua")));
+        assertEquals(List.of(500L), ids(include("extracto")));
+        assertEquals(List.of(), ids(include("extracto 7")));
+        assertEquals(List.of(3L), ids(include("acid")));
+        assertEquals(4, index.facets(ProductFilter.byCategory(null), null).total());
+    }
+
+    // Un alta con id menor que el último y los borrados masivos renumeran: páginas y cursor siguen el id
+    @Test
+    void outOfOrderInsertsAndCompactionKeepIdOrder() {
+        index.rebuild(catalog());
+        ProductFilter all = ProductFilter.byCategory(null);
+
+        index.upsertAll(List.of(document(10L, ProductCategory.TONICO, ProductApplicationTime.AMBOS, Set.of(),
+                Set.of(), "Aqua")));
+        index.upsertAll(List.of(document(7L, ProductCategory.TONICO, ProductApplicationTime.AMBOS, Set.of(),
+                Set.of(), "Aqua")));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 7L, 10L), ids(all));
+        assertEquals(List.of(1L, 4L, 7L, 10L), ids(include("aqua")));
+        assertEquals(List.of(7L, 10L), index.scroll(all, Cursor.of(4L), 5).content().stream()
+                .map(ProductSummaryDTO::getId).toList());
+
+        List<ProductDocument> batch = new ArrayList<>();
+        for (long id = 1000; id < 3000; id++) {
+            batch.add(document(id, ProductCategory.SERUM, ProductApplicationTime.NOCHE, Set.of(), Set.of(),
+                    "Retinol"));
+        }
+        index.upsertAll(batch);
+        index.removeAll(batch.stream().map(ProductDocument::id).filter(id -> id % 4 != 0).toList());
+
+        assertEquals(List.of(2996L), ids(include("retinol")).subList(499, 500));
+        assertEquals(List.of(1008L, 1012L), index.search(include("retinol"), PageRequest.of(1, 2))
+                .map(ProductSummaryDTO::getId).getContent());
+        assertEquals(List.of(1000L, 1004L), index.scroll(all, Cursor.of(10L), 2).content().stream()
+                .map(ProductSummaryDTO::getId).toList());
+        assertTrue(index.matcher(include("retinol")).test(2996L));
+        assertFalse(index.matcher(include("retinol")).test(2997L));
+    }
+
+    private List<Long> ids(ProductFilter filter) {
+        return index.search(filter, Pageable.unpaged()).map(ProductSummaryDTO::getId).getContent();
+    }
+
+    private static ProductFilter include(String term) {
+        return new ProductFilter(null, null, null, null, Set.of(term), null);
+    }
+
+    private static List<ProductDocument> catalog() {
+        List<ProductDocument> documents = new ArrayList<>();
+        documents.add(document(1L, ProductCategory.SERUM, ProductApplicationTime.DIA, Set.of(SkinType.GRASA),
+                Set.of(Goal.MANCHAS), "Aqua, Ascorbic Acid, Glycerin"));
+        documents.add(document(2L, ProductCategory.SERUM, ProductApplicationTime.NOCHE,
+                Set.of(SkinType.SECA, SkinType.GRASA), Set.of(Goal.POROS), "Niacinamide; Parfum (Fragrance)"));
+        documents.add(document(3L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, Set.of(SkinType.GRASA),
+                Set.of(Goal.MANCHAS, Goal.TEXTURA), "Salicylic Acid, Zinc PCA"));
+        documents.add(document(4L, ProductCategory.HIDRATANTE, ProductApplicationTime.AMBOS,
+                Set.of(SkinType.SECA), Set.of(), "Aqua, Shea Butter"));
+        return documents;
+    }
+
+    private static ProductDocument document(long id, ProductCategory category, ProductApplicationTime time,
+            Set<SkinType> skinTypes, Set<Goal> goals, String ingredients) {
+        return new ProductDocument(id, "Producto " + id, "Klari", null, ingredients, category, time, goals,
+                skinTypes);
+    }
+}
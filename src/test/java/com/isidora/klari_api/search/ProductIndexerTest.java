@@ -0,0 +1,71 @@
+package com.isidora.klari_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.repository.ProductRepository;
+
+class ProductIndexerTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final ProductIndexer indexer = new ProductIndexer(List.of(searchIndex), productRepository,
+            catalogVersion, mock(PlatformTransactionManager.class));
+
+    @Test
+    void writesDuringTheInitialLoadSurviveTheSwap() {
+        Product stale = product(1L, "Serum viejo");
+        Product removed = product(2L, "Gel borrado");
+        Product created = product(3L, "Crema nueva");
+
+        // La carga lee las filas antes de que lleguen las escrituras, que terminan antes de publicar
+        when(productRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenAnswer(invocation -> {
+            assertFalse(searchIndex.isReady());
+            indexer.indexed(List.of(product(1L, "Serum renovado"), created));
+            indexer.removed(List.of(2L));
+            return List.of(1L, 2L);
+        });
+        when(productRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(stale, removed));
+
+        indexer.rebuildAll();
+
+        assertTrue(searchIndex.isReady());
+        assertEquals(List.of(1L), ids("renovado"));
+        assertEquals(List.of(), ids("viejo"));
+        assertEquals(List.of(), ids("gel"));
+        assertEquals(List.of(3L), ids("crema"));
+        assertTrue(catalogVersion.current() > 0);
+    }
+
+    private List<Long> ids(String query) {
+        return searchIndex.search(query, null, Pageable.unpaged()).map(ProductSummaryDTO::getId).getContent();
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand("Klari");
+        product.setCategory(ProductCategory.SERUM);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        return product;
+    }
+}
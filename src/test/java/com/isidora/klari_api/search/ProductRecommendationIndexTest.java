@@ -0,0 +1,157 @@
+package com.isidora.klari_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+class ProductRecommendationIndexTest {
+
+    private final ProductRecommendationIndex index = new ProductRecommendationIndex();
+
+    @Test
+    void fallsBackTierByTierLikeTheQueryCascade() {
+        index.rebuild(catalog());
+
+        // Piel y meta
+        assertEquals(List.of(1L), ids(SkinType.GRASA, Set.of(Goal.MANCHAS), ProductApplicationTime.DIA));
+        // Sin ninguno con las dos: solo piel, y si no, solo metas
+        assertEquals(List.of(1L, 2L), ids(SkinType.GRASA, Set.of(Goal.POROS), ProductApplicationTime.DIA));
+        assertEquals(List.of(3L), ids(SkinType.SENSIBLE, Set.of(Goal.TEXTURA), ProductApplicationTime.DIA));
+        // Sin coincidencias de piel ni metas: categoría y momento del día (AMBOS sirve para los dos)
+        assertEquals(List.of(1L, 2L, 3L), ids(SkinType.SENSIBLE, Set.of(Goal.IRRITACION),
+                ProductApplicationTime.DIA));
+        assertEquals(List.of(3L, 4L), ids(SkinType.SENSIBLE, Set.of(Goal.IRRITACION),
+                ProductApplicationTime.NOCHE));
+        // Sin perfil solo queda lo que no depende de él
+        assertEquals(List.of(3L, 4L), ids(null, Set.of(), ProductApplicationTime.NOCHE));
+        // Ni siquiera el momento del día: toda la categoría
+        assertEquals(List.of(5L), index.recommend(ProductCategory.TONICO, ProductApplicationTime.DIA,
+                SkinType.GRASA, Set.of(Goal.MANCHAS), Pageable.unpaged()).map(ProductSummaryDTO::getId)
+                .getContent());
+        assertEquals(0, index.recommend(ProductCategory.PROTECTOR_SOLAR, ProductApplicationTime.DIA,
+                SkinType.GRASA, Set.of(), Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void pagesCountTheWholeTierInBothDirections() {
+        List<ProductDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 23; id++) {
+            documents.add(document(id, ProductCategory.SERUM, ProductApplicationTime.AMBOS,
+                    id % 2 == 0 ? Set.of(SkinType.SECA) : Set.of(SkinType.GRASA), Set.of(Goal.POROS)));
+        }
+        index.rebuild(documents);
+
+        Page<ProductSummaryDTO> second = index.recommend(ProductCategory.SERUM, ProductApplicationTime.DIA,
+                SkinType.GRASA, Set.of(Goal.POROS), PageRequest.of(1, 5, Sort.by("id")));
+        assertEquals(12, second.getTotalElements());
+        assertEquals(List.of(11L, 13L, 15L, 17L, 19L), second.map(ProductSummaryDTO::getId).getContent());
+
+        Page<ProductSummaryDTO> last = index.recommend(ProductCategory.SERUM, ProductApplicationTime.DIA,
+                SkinType.GRASA, Set.of(Goal.POROS), PageRequest.of(2, 5, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(List.of(3L, 1L), last.map(ProductSummaryDTO::getId).getContent());
+
+        // Pasada la última página del nivel, la cascada sigue con el siguiente que tenga contenido
+        Page<ProductSummaryDTO> beyond = index.recommend(ProductCategory.SERUM, ProductApplicationTime.DIA,
+                SkinType.GRASA, Set.of(), PageRequest.of(3, 5, Sort.by("id")));
+        assertEquals(23, beyond.getTotalElements());
+        assertEquals(List.of(16L, 17L, 18L, 19L, 20L), beyond.map(ProductSummaryDTO::getId).getContent());
+
+        assertTrue(index.supports(Sort.by("id")));
+        assertFalse(index.supports(Sort.by("name")));
+    }
+
+    @Test
+    void upsertsMoveProductsBetweenCategoriesAndRemovalsDropThem() {
+        assertFalse(index.isReady());
+        index.rebuild(catalog());
+        assertTrue(index.isReady());
+
+        index.upsertAll(List.of(document(5L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA,
+                Set.of(SkinType.GRASA), Set.of(Goal.MANCHAS))));
+        index.removeAll(List.of(1L));
+
+        assertEquals(List.of(5L), ids(SkinType.GRASA, Set.of(Goal.MANCHAS), ProductApplicationTime.DIA));
+        assertEquals(0, index.recommend(ProductCategory.TONICO, ProductApplicationTime.DIA, null, Set.of(),
+                Pageable.unpaged()).getTotalElements());
+    }
+
+    // Reemplazos en su lugar, altas intercaladas y bajas en una misma serie de escrituras
+    @Test
+    void incrementalWritesMatchARebuild() {
+        List<ProductDocument> documents = new ArrayList<>(catalog());
+        index.rebuild(documents);
+
+        List<List<ProductDocument>> writes = List.of(
+                List.of(document(2L, ProductCategory.LIMPIADOR, ProductApplicationTime.NOCHE, Set.of(SkinType.SECA),
+                        Set.of(Goal.POROS))),
+                List.of(document(9L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, Set.of(SkinType.GRASA),
+                        Set.of(Goal.MANCHAS)),
+                        document(0L, ProductCategory.TONICO, ProductApplicationTime.DIA, Set.of(), Set.of()),
+                        document(3L, ProductCategory.SERUM, ProductApplicationTime.AMBOS, Set.of(), Set.of())));
+        for (List<ProductDocument> write : writes) {
+            index.upsertAll(write);
+            write.forEach(document -> {
+                documents.removeIf(existing -> existing.id() == document.id());
+                documents.add(document);
+            });
+        }
+        index.removeAll(List.of(4L, 0L, 42L));
+        documents.removeIf(document -> document.id() == 4L || document.id() == 0L);
+
+        ProductRecommendationIndex rebuilt = new ProductRecommendationIndex();
+        rebuilt.rebuild(documents);
+        for (ProductCategory category : ProductCategory.values()) {
+            for (ProductApplicationTime time : ProductApplicationTime.values()) {
+                for (SkinType skinType : SkinType.values()) {
+                    Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
+                    assertEquals(
+                            rebuilt.recommend(category, time, skinType, Set.of(Goal.MANCHAS), pageable)
+                                    .map(ProductSummaryDTO::getId).getContent(),
+                            index.recommend(category, time, skinType, Set.of(Goal.MANCHAS), pageable)
+                                    .map(ProductSummaryDTO::getId).getContent());
+                }
+            }
+        }
+        assertEquals(List.of(1L, 9L), ids(SkinType.GRASA, Set.of(Goal.MANCHAS), ProductApplicationTime.DIA));
+    }
+
+    private List<Long> ids(SkinType skinType, Set<Goal> goals, ProductApplicationTime time) {
+        return index.recommend(ProductCategory.LIMPIADOR, time, skinType, goals, PageRequest.of(0, 10,
+                Sort.by("id"))).map(ProductSummaryDTO::getId).getContent();
+    }
+
+    private static List<ProductDocument> catalog() {
+        return List.of(
+                document(1L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA,
+                        Set.of(SkinType.GRASA), Set.of(Goal.MANCHAS)),
+                document(2L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA,
+                        Set.of(SkinType.GRASA, SkinType.MIXTA), Set.of()),
+                document(3L, ProductCategory.LIMPIADOR, ProductApplicationTime.AMBOS,
+                        Set.of(SkinType.SECA), Set.of(Goal.TEXTURA)),
+                document(4L, ProductCategory.LIMPIADOR, ProductApplicationTime.NOCHE,
+                        Set.of(), Set.of(Goal.MANCHAS)),
+                document(5L, ProductCategory.TONICO, ProductApplicationTime.NOCHE,
+                        Set.of(SkinType.GRASA), Set.of(Goal.MANCHAS)));
+    }
+
+    private static ProductDocument document(long id, ProductCategory category, ProductApplicationTime time,
+            Set<SkinType> skinTypes, Set<Goal> goals) {
+        return new ProductDocument(id, "Producto " + id, "Klari", null, null, category, time, goals, skinTypes);
+    }
+}
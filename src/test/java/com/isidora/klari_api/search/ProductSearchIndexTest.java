@@ -0,0 +1,145 @@
+package com.isidora.klari_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.isidora.klari_api.dto.Cursor;
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void ranksNameOverBrandAndExactOverPrefix() {
+        index.rebuild(List.of(
+                document(1L, "Agua micelar", "Hidra", ProductCategory.LIMPIADOR),
+                document(2L, "Hidratante", "Klari", ProductCategory.HIDRATANTE),
+                document(3L, "Crema hidra", "Klari", ProductCategory.HIDRATANTE),
+                document(4L, "Tónico", "Klari", ProductCategory.TONICO)));
+
+        // Nombre exacto (2) > marca exacta (1) > nombre por prefijo (2 * 0.5 * 5/10)
+        assertEquals(List.of(3L, 1L, 2L), ids("hidra", null));
+        assertEquals(List.of(4L), ids("TONICO", null));
+        assertEquals(List.of(3L, 2L), ids("hidra", ProductCategory.HIDRATANTE));
+        assertEquals(List.of(3L, 2L), ids("klari hidra", null));
+        assertEquals(List.of(), ids("klari micelar", null));
+    }
+
+    @Test
+    void shortPrefixesReturnEveryExpansion() {
+        List<ProductDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 600; id++) {
+            documents.add(document(id, "Serum sa" + id, "Klari", ProductCategory.SERUM));
+        }
+        index.rebuild(documents);
+
+        Page<ProductSummaryDTO> page = index.search("sa", null, PageRequest.of(0, 10));
+
+        assertEquals(600, page.getTotalElements());
+        assertEquals(600, index.matchingIds("sa").size());
+        // Mismo puntaje: "sa1" es la expansión más corta
+        assertEquals(1L, page.getContent().get(0).getId());
+    }
+
+    @Test
+    void pagesAndScrollFollowTheUnpagedOrder() {
+        List<ProductDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 57; id++) {
+            String name = id % 3 == 0 ? "Gel limpiador" : "Gel limpiador suave " + "x".repeat((int) (id % 7));
+            documents.add(document(id, name, id % 2 == 0 ? "Gel" : "Klari", ProductCategory.LIMPIADOR));
+        }
+        index.rebuild(documents);
+        List<Long> expected = ids("gel lim", null);
+        assertEquals(57, expected.size());
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 6; page++) {
+            index.search("gel lim", null, PageRequest.of(page, 10))
+                    .forEach(summary -> paged.add(summary.getId()));
+        }
+        assertEquals(expected, paged);
+
+        List<Long> scrolled = new ArrayList<>();
+        Cursor after = null;
+        do {
+            CursorPageDTO<ProductSummaryDTO> page = index.scroll("gel lim", null, null, after, 8);
+            page.content().forEach(summary -> scrolled.add(summary.getId()));
+            after = Cursor.decode(page.nextCursor(), Cursor.Kind.RELEVANCE);
+        } while (after != null);
+        assertEquals(expected, scrolled);
+    }
+
+    @Test
+    void filterRestrictsTheResults() {
+        index.rebuild(LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> document(id, "Protector solar", "Klari", ProductCategory.PROTECTOR_SOLAR))
+                .toList());
+
+        Page<ProductSummaryDTO> page = index.search("solar", null, id -> id % 5 == 0, PageRequest.of(0, 3));
+
+        assertEquals(4, page.getTotalElements());
+        assertEquals(List.of(5L, 10L, 15L), page.map(ProductSummaryDTO::getId).getContent());
+    }
+
+    @Test
+    void upsertsAndRemovalsReplaceOnlyTheirTerms() {
+        assertFalse(index.isReady());
+        index.rebuild(List.of(
+                document(1L, "Serum niacinamida", "Klari", ProductCategory.SERUM),
+                document(2L, "Serum retinol", "Klari", ProductCategory.SERUM)));
+        assertTrue(index.isReady());
+
+        index.upsertAll(List.of(
+                document(1L, "Serum vitamina c", "Klari", ProductCategory.SERUM),
+                document(3L, "Serum niacinamida", "Otra", ProductCategory.SERUM)));
+        index.removeAll(List.of(2L));
+
+        assertEquals(List.of(3L), ids("niacinamida", null));
+        assertEquals(List.of(1L), ids("vitamina", null));
+        assertEquals(List.of(), ids("retinol", null));
+        assertEquals(Set.of(1L, 3L), index.matchingIds("serum"));
+    }
+
+    @Test
+    void compactionKeepsTheLiveProducts() {
+        List<ProductDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            documents.add(document(id, "Crema " + (id % 2 == 0 ? "par" : "impar"), "Klari",
+                    ProductCategory.HIDRATANTE));
+        }
+        index.rebuild(documents);
+
+        // Borrar los pares libera más de un cuarto de los ordinales y dispara la compactación
+        index.removeAll(LongStream.rangeClosed(1, 3000).filter(id -> id % 2 == 0).boxed().toList());
+        index.upsertAll(List.of(document(3001L, "Crema par", "Klari", ProductCategory.HIDRATANTE)));
+
+        assertEquals(List.of(3001L), ids("par", null));
+        assertEquals(1500, index.matchingIds("impar").size());
+        assertEquals(1501, index.search("crema", null, Pageable.unpaged()).getTotalElements());
+        assertTrue(index.isReady());
+    }
+
+    private List<Long> ids(String query, ProductCategory category) {
+        return index.search(query, category, Pageable.unpaged()).map(ProductSummaryDTO::getId).getContent();
+    }
+
+    private static ProductDocument document(long id, String name, String brand, ProductCategory category) {
+        return new ProductDocument(id, name, brand, null, null, category, ProductApplicationTime.AMBOS,
+                Set.of(), Set.of());
+    }
+}
@@ -0,0 +1,79 @@
+package com.isidora.klari_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.isidora.klari_api.dto.ProductSuggestionDTO;
+import com.isidora.klari_api.dto.ProductSuggestionDTO.Field;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+
+class ProductSuggestIndexTest {
+
+    private final ProductSuggestIndex index = new ProductSuggestIndex();
+
+    @Test
+    void startsOfNameOrBrandComeBeforeInnerWords() {
+        assertFalse(index.isReady());
+        index.rebuild(List.of(
+                document(1L, "Crema hidratante", "Klari"),
+                document(2L, "Hidratante ligero", "Klari"),
+                document(3L, "Sérum", "Hidra Lab"),
+                document(4L, "Tónico", "Otra")));
+        assertTrue(index.isReady());
+
+        // Marca "Hidra Lab" e inicio de nombre (2) primero; la palabra interna (1) al final
+        assertEquals(List.of("BRAND:Hidra Lab", "NAME:2", "NAME:1"), texts(index.suggest("HIDRA", 10)));
+        // Sin acentos ni mayúsculas, y varias palabras seguidas
+        assertEquals(List.of("NAME:4"), texts(index.suggest("tonico", 10)));
+        assertEquals(List.of("NAME:1"), texts(index.suggest("crema hid", 10)));
+        // Una sola sugerencia por marca aunque tenga varios productos
+        assertEquals(List.of("BRAND:Klari"), texts(index.suggest("kl", 10)));
+        assertEquals(List.of("BRAND:Hidra Lab"), texts(index.suggest("hidra", 1)));
+        assertEquals(List.of(), index.suggest("  ", 10));
+        assertEquals(List.of(), index.suggest("hidra", 0));
+    }
+
+    @Test
+    void upsertsAndRemovalsReplaceStaleSuggestions() {
+        index.rebuild(List.of(
+                document(1L, "Crema hidratante", "Klari"),
+                document(2L, "Gel limpiador", "Klari"),
+                document(3L, "Sérum", "Hidra Lab")));
+
+        // Renombrar deja solo el nombre nuevo; la marca sigue mientras le quede un producto
+        index.upsertAll(List.of(document(1L, "Bálsamo", "Otra")));
+        assertEquals(List.of(), index.suggest("crema", 10));
+        assertEquals(List.of("NAME:1"), texts(index.suggest("balsamo", 10)));
+        assertEquals(List.of("BRAND:Klari"), texts(index.suggest("klari", 10)));
+        assertEquals(List.of("BRAND:Otra"), texts(index.suggest("otra", 10)));
+
+        index.removeAll(List.of(2L, 3L, 99L));
+        assertEquals(List.of(), index.suggest("klari", 10));
+        assertEquals(List.of(), index.suggest("hidra", 10));
+        assertEquals(List.of(), index.suggest("lab", 10));
+
+        // Una marca retirada vuelve con su próximo producto
+        index.upsertAll(List.of(document(5L, "Agua micelar", "Klari")));
+        assertEquals(List.of("BRAND:Klari"), texts(index.suggest("klari", 10)));
+    }
+
+    private static List<String> texts(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream()
+                .map(suggestion -> suggestion.field() == Field.BRAND
+                        ? "BRAND:" + suggestion.text()
+                        : "NAME:" + suggestion.productId())
+                .toList();
+    }
+
+    private static ProductDocument document(long id, String name, String brand) {
+        return new ProductDocument(id, name, brand, null, null, ProductCategory.SERUM, ProductApplicationTime.AMBOS,
+                Set.of(), Set.of());
+    }
+}
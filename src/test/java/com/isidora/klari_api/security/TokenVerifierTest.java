@@ -0,0 +1,83 @@
+package com.isidora.klari_api.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenVerifierTest {
+
+    private static final String SECRET = "una-clave-de-prueba-de-al-menos-32-bytes";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L);
+    private final TokenVerifier tokenVerifier = new TokenVerifier(jwtUtil, meterRegistry, 100, 100);
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        String token = jwtUtil.generateToken(5L, "ana");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(5L, tokenVerifier.verify(token).orElseThrow().userId());
+        }
+        assertEquals(1, verifications("valid"));
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreRejected() {
+        String token = jwtUtil.generateToken(5L, "ana");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String expired = new JwtUtil(SECRET, -1_000L).generateToken(5L, "ana");
+
+        assertTrue(tokenVerifier.verify(tampered).isEmpty());
+        assertTrue(tokenVerifier.verify(expired).isEmpty());
+        assertEquals(2, verifications("invalid"));
+    }
+
+    @Test
+    void revokedTokenIsRejectedButOthersAreNot() {
+        String token = jwtUtil.generateToken(5L, "ana");
+        String other = jwtUtil.generateToken(5L, "ana");
+        tokenVerifier.verify(token);
+
+        assertTrue(tokenVerifier.revoke(token));
+        assertTrue(tokenVerifier.verify(token).isEmpty());
+        assertFalse(tokenVerifier.revoke(token));
+        assertTrue(tokenVerifier.verify(other).isPresent());
+    }
+
+    @Test
+    void fullRevocationListRejectsNewRevocationsInsteadOfForgettingOldOnes() {
+        TokenVerifier small = new TokenVerifier(jwtUtil, new SimpleMeterRegistry(), 100, 2);
+        String first = jwtUtil.generateToken(5L, "ana");
+        String second = jwtUtil.generateToken(6L, "eva");
+        String third = jwtUtil.generateToken(7L, "sol");
+
+        assertTrue(small.revoke(first));
+        assertTrue(small.revoke(second));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> small.revoke(third));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertTrue(small.verify(first).isEmpty());
+        assertTrue(small.verify(second).isEmpty());
+        assertTrue(small.verify(third).isPresent());
+    }
+
+    @Test
+    void bearerTokenIgnoresOtherSchemes() {
+        assertEquals("abc", TokenVerifier.bearerToken("Bearer abc"));
+        assertNull(TokenVerifier.bearerToken("Basic abc"));
+        assertNull(TokenVerifier.bearerToken(null));
+    }
+
+    private long verifications(String result) {
+        return meterRegistry.get("jwt.verification").tag("result", result).timer().count();
+    }
+}
@@ -0,0 +1,173 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.dto.CursorPageDTO;
+import com.isidora.klari_api.dto.HomeDTO;
+import com.isidora.klari_api.dto.UserProfileDTO;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+
+class HomeServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final UserService userService = mock(UserService.class);
+    private final RoutineService routineService = mock(RoutineService.class);
+    private final ProductService productService = mock(ProductService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private HomeService homeService;
+
+    @BeforeEach
+    void setUp() {
+        homeService = new HomeService(userService, routineService, productService, transactionManager, 4, 16,
+                300);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+        when(routineService.findActiveDayRoutine(USER_ID)).thenReturn(Optional.empty());
+        when(routineService.findActiveNightRoutine(USER_ID)).thenReturn(Optional.empty());
+        when(userService.scrollFavoriteSummaries(eq(USER_ID), isNull(), isNull(), anyInt()))
+                .thenReturn(new CursorPageDTO<>(List.of(), null, false));
+        when(userService.scrollInventorySummaries(eq(USER_ID), isNull(), isNull(), anyInt()))
+                .thenReturn(new CursorPageDTO<>(List.of(), null, false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        homeService.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void slowPartIsLeftOutAndPartsSeeTheCaller() {
+        AtomicReference<Object> principal = new AtomicReference<>();
+        when(userService.getProfile(USER_ID)).thenAnswer(invocation -> {
+            principal.set(SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+            return new UserProfileDTO(USER_ID, "ana", "ana@klari.test", SkinType.MIXTA, Set.of(Goal.MANCHAS));
+        });
+        when(productService.findForRoutineSimple(any(), any(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(2000);
+                    return List.of();
+                });
+
+        HomeDTO home = homeService.getHome(USER_ID, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10);
+
+        assertEquals(USER_ID, principal.get());
+        assertNotNull(home.profile());
+        assertNotNull(home.favorites());
+        assertNotNull(home.inventory());
+        assertNull(home.recommendations());
+        assertEquals(Set.of("recommendations"), home.missing());
+    }
+
+    // Las lecturas de cada parte corren con el resto del plazo como timeout de la transacción
+    @Test
+    void partQueriesRunInReadOnlyTransactionsBoundByTheDeadline() {
+        when(userService.getProfile(USER_ID)).thenReturn(profile());
+
+        homeService.getHome(USER_ID, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10);
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definitions.capture());
+        for (TransactionDefinition definition : definitions.getAllValues()) {
+            assertTrue(definition.isReadOnly());
+            assertEquals(1, definition.getTimeout());
+        }
+    }
+
+    // Perfil en caché y recomendaciones en memoria: ninguna de las dos abre transacción
+    @Test
+    void cachedProfileAndMemoryRecommendationsSkipTheTransaction() {
+        when(userService.findCachedProfile(USER_ID)).thenReturn(Optional.of(profile()));
+        when(productService.recommendsFromIndex()).thenReturn(true);
+        when(productService.findForRoutineSimple(any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        HomeDTO home = homeService.getHome(USER_ID, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10);
+
+        assertEquals(Set.of(), home.missing());
+        verify(userService, never()).getProfile(USER_ID);
+        // Solo las rutinas, favoritos e inventario
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    // Con la cola llena las partes no corren en el hilo del pedido: quedan en missing y nunca se ejecutan
+    @Test
+    void rejectedPartsAreMissingInsteadOfRunningOnTheCaller() throws InterruptedException {
+        homeService.stop();
+        homeService = new HomeService(userService, routineService, productService, transactionManager, 1, 1,
+                300);
+        // El perfil ocupa el único hilo y la rutina de día la cola: el resto se rechaza
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.getProfile(USER_ID)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return profile();
+        });
+
+        long start = System.nanoTime();
+        HomeDTO home = homeService.getHome(USER_ID, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertTrue(elapsed < 2000, () -> "Tardó " + elapsed + " ms");
+        assertTrue(home.missing().containsAll(Set.of("nightRoutine", "favorites", "inventory")));
+        verify(routineService, never()).findActiveNightRoutine(USER_ID);
+        verify(userService, never()).scrollFavoriteSummaries(eq(USER_ID), isNull(), isNull(), anyInt());
+        verify(userService, never()).scrollInventorySummaries(eq(USER_ID), isNull(), isNull(), anyInt());
+    }
+
+    @Test
+    void partErrorsAreReturnedAsIs() {
+        when(userService.getProfile(USER_ID))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> homeService.getHome(USER_ID, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10));
+        assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+    }
+
+    @Test
+    void otherUsersHomeIsForbidden() {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> homeService.getHome(8L, ProductCategory.LIMPIADOR, ProductApplicationTime.DIA, 10));
+        assertEquals(HttpStatus.FORBIDDEN, error.getStatusCode());
+    }
+
+    private static UserProfileDTO profile() {
+        return new UserProfileDTO(USER_ID, "ana", "ana@klari.test", SkinType.MIXTA, Set.of(Goal.MANCHAS));
+    }
+}
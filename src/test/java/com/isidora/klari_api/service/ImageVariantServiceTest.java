@@ -0,0 +1,97 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.model.enums.ImageVariant;
+import com.isidora.klari_api.service.ImageVariantService.VariantImage;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ImageVariantService imageVariantService;
+
+    @AfterEach
+    void stop() {
+        if (imageVariantService != null) {
+            imageVariantService.stop();
+        }
+    }
+
+    @Test
+    void hugeDeclaredDimensionsAreNotDecoded() throws IOException {
+        ImageStorageService storage = new ImageStorageService(directory.toString(), 1024);
+        imageVariantService = new ImageVariantService(storage, 1, 4, 40_000_000L);
+        // Unos pocos bytes que declaran 50000x50000 píxeles: decodificarlos pediría gigabytes
+        String hash = storage.store(pngHeader(50_000, 50_000), "image/png");
+
+        VariantImage variant = imageVariantService.find(hash, ImageVariant.values()[0]).orElseThrow();
+
+        assertEquals(storage.find(hash).orElseThrow().path(), variant.path());
+        assertTrue(variant.definitive());
+    }
+
+    @Test
+    void dataUrisOverTheLimitAreRejected() {
+        ImageStorageService storage = new ImageStorageService(directory.toString(), 16);
+        String small = "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[16]);
+        String large = "data:image/png;base64," + Base64.getMimeEncoder().encodeToString(new byte[17]);
+
+        assertTrue(storage.externalize(small).startsWith(ImageStorageService.URL_PREFIX));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> storage.externalize(large));
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, e.getStatusCode());
+    }
+
+    @Test
+    void nonRasterDataUrisAreRejected() {
+        ImageStorageService storage = new ImageStorageService(directory.toString(), 1024);
+        String svg = "data:image/svg+xml;base64," + Base64.getEncoder()
+                .encodeToString("<svg onload=\"alert(1)\"/>".getBytes(StandardCharsets.UTF_8));
+        String untyped = "data:;base64," + Base64.getEncoder().encodeToString(new byte[4]);
+
+        for (String dataUri : new String[] { svg, untyped }) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> storage.externalize(dataUri));
+            assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+        }
+    }
+
+    // Firma PNG y cabecera IHDR, sin datos de imagen
+    private static byte[] pngHeader(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' });
+
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.write(new byte[] { 8, 6, 0, 0, 0 });
+        byte[] data = chunk.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        out.writeInt(data.length - 4);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,91 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.repository.ProductRepository;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+// Más productos que un bloque de lectura, para cruzar el límite entre bloques
+@DataJpaTest
+class ProductExportServiceTest {
+
+    private static final int PRODUCTS = 501;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void writesOneObjectPerLineInIdOrder() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Producto " + i);
+            product.setBrand("Klari");
+            product.setCategory(ProductCategory.SERUM);
+            product.setApplicationTime(ProductApplicationTime.NOCHE);
+            if (i == 0) {
+                product.setDescription("línea 1\nlínea \"2\"");
+                product.setGoals(Set.of(Goal.MANCHAS, Goal.POROS));
+                product.setSkinTypes(Set.of(SkinType.SECA));
+            }
+            products.add(product);
+        }
+        List<Product> saved = productRepository.saveAllAndFlush(products);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = new ProductExportService(dataSource, transactionManager, objectMapper).export(out);
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lines = ndjson.split("\n");
+        assertEquals(PRODUCTS, written);
+        assertEquals(PRODUCTS, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(saved.get(0).getId(), first.get("id").asLong());
+        assertEquals("línea 1\nlínea \"2\"", first.get("description").asString());
+        assertEquals("NOCHE", first.get("applicationTime").asString());
+        assertEquals(Set.of("MANCHAS", "POROS"), Set.of(first.get("goals").get(0).asString(),
+                first.get("goals").get(1).asString()));
+        assertEquals("SECA", first.get("skinTypes").get(0).asString());
+        assertTrue(first.get("imageUrl").isNull());
+
+        long previous = 0;
+        for (String line : lines) {
+            long id = objectMapper.readTree(line).get("id").asLong();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(saved.get(PRODUCTS - 1).getId(), previous);
+    }
+}
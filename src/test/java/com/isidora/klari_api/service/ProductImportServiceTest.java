@@ -0,0 +1,140 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.isidora.klari_api.dto.ImportReportDTO;
+import com.isidora.klari_api.dto.ImportReportDTO.RejectedRow;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.repository.ProductJdbcRepository;
+import com.isidora.klari_api.repository.ProductJdbcRepository.Upserted;
+import com.isidora.klari_api.search.ProductIndexer;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class ProductImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final ProductJdbcRepository productJdbcRepository = mock(ProductJdbcRepository.class);
+    private final ProductIndexer productIndexer = mock(ProductIndexer.class);
+    private final List<Product> written = new ArrayList<>();
+
+    @Test
+    void csvRowsAreParsedDedupedAndUpserted() {
+        // Los productos de "Klari" ya existen: el upsert los informa como actualizados
+        when(productJdbcRepository.upsertAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Product> products = invocation.getArgument(0);
+            List<Long> inserted = new ArrayList<>();
+            List<Long> updated = new ArrayList<>();
+            for (Product product : products) {
+                product.setId((long) written.size() + 1);
+                written.add(product);
+                ("Klari".equals(product.getBrand()) ? updated : inserted).add(product.getId());
+            }
+            return new Upserted(inserted, updated);
+        });
+        String csv = """
+                name,brand,category,application_time,goals,skin_types,description
+                Gel limpiador,Klari,limpiador,ambos,MANCHAS|poros,GRASA,"Espuma suave, sin jabón"
+
+                Serum,Otra,SERUM,NOCHE,,,
+                Tónico,,TONICO,DIA,,,
+                Crema,Otra,CREMA,DIA,,,
+                Gel limpiador,Klari,LIMPIADOR,DIA,,,Reemplazo
+                """;
+
+        ImportReportDTO report = service().importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // La línea en blanco cuenta para la numeración pero no como fila
+        assertEquals(5, report.total());
+        assertEquals(1, report.inserted());
+        assertEquals(1, report.updated());
+        assertEquals(3, report.rejected());
+        assertEquals(Set.of(1L, 4L, 5L),
+                report.rejectedRows().stream().map(RejectedRow::row).collect(Collectors.toSet()));
+
+        assertEquals(2, written.size());
+        Product gel = written.stream().filter(product -> "Klari".equals(product.getBrand())).findFirst()
+                .orElseThrow();
+        assertEquals("Reemplazo", gel.getDescription());
+        assertEquals(ProductApplicationTime.DIA, gel.getApplicationTime());
+        Product serum = written.stream().filter(product -> "Otra".equals(product.getBrand())).findFirst()
+                .orElseThrow();
+        assertEquals(ProductCategory.SERUM, serum.getCategory());
+        assertEquals(Set.of(), serum.getGoals());
+        assertNull(serum.getImageUrl());
+        verify(productIndexer).indexed(anyCollection());
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsAndListsSplitOnPipes() {
+        when(productJdbcRepository.upsertAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Product> products = invocation.getArgument(0);
+            written.addAll(products);
+            return new Upserted(products.stream().map(product -> 1L).toList(), List.of());
+        });
+        String csv = "brand,name,category,applicationTime,goals,skinTypes,description\n"
+                + "Klari,\"Sérum, vitamina C\",SERUM,DIA,MANCHAS|TEXTURA,SECA|MIXTA,\"línea 1\nlínea \"\"2\"\"\"\n";
+
+        ImportReportDTO report = service().importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, report.inserted());
+        Product product = written.get(0);
+        assertEquals("Sérum, vitamina C", product.getName());
+        assertEquals(Set.of(Goal.MANCHAS, Goal.TEXTURA), product.getGoals());
+        assertEquals(Set.of(SkinType.SECA, SkinType.MIXTA), product.getSkinTypes());
+        assertEquals("línea 1\nlínea \"2\"", product.getDescription());
+    }
+
+    // Un nombre más largo que la columna se rechaza como fila, sin tumbar el resto del bloque
+    @Test
+    void valuesLongerThanTheirColumnsAreRejectedRows() {
+        when(productJdbcRepository.upsertAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Product> products = invocation.getArgument(0);
+            written.addAll(products);
+            return new Upserted(products.stream().map(product -> 1L).toList(), List.of());
+        });
+        String csv = "brand,name,category,applicationTime\n"
+                + "Klari," + "n".repeat(256) + ",SERUM,DIA\n"
+                + "Klari," + "ñ".repeat(255) + ",SERUM,DIA\n";
+
+        ImportReportDTO report = service().importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, report.inserted());
+        assertEquals(1, report.rejected());
+        assertEquals(new RejectedRow(1, "name supera los 255 caracteres"), report.rejectedRows().get(0));
+        assertEquals(255, written.get(0).getName().length());
+    }
+
+    private ProductImportService service() {
+        return new ProductImportService(productJdbcRepository, productIndexer,
+                new ImageStorageService(directory.toString(), 1024), mock(ImageVariantService.class),
+                mock(PlatformTransactionManager.class), JsonMapper.builder().build());
+    }
+}
@@ -0,0 +1,135 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.Goal;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.SkinType;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductDocument;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
+
+/**
+ * El motor en memoria tiene que devolver lo mismo que la cascada de consultas
+ * del backend "jpa" sobre los mismos datos: cada combinación de perfil, momento
+ * del día y página se compara en ids, orden y total.
+ */
+@DataJpaTest
+class ProductRecommendationEquivalenceTest {
+
+    private static final List<Sort> SORTS = List.of(Sort.by("id"), Sort.by(Sort.Direction.DESC, "id"));
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ProductService jpa;
+    private ProductService memory;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> saved = productRepository.saveAll(catalog());
+        ProductRecommendationIndex index = new ProductRecommendationIndex();
+        index.rebuild(saved.stream().map(ProductDocument::of).toList());
+
+        jpa = service(index, "jpa");
+        memory = service(index, "memory");
+    }
+
+    @Test
+    void memoryBackendMatchesTheQueryCascade() {
+        List<SkinType> skinTypes = new ArrayList<>(List.of(SkinType.values()));
+        skinTypes.add(null);
+        List<Set<Goal>> goalSets = List.of(Set.of(), Set.of(Goal.MANCHAS), Set.of(Goal.TEXTURA, Goal.POROS),
+                EnumSet.allOf(Goal.class));
+
+        int compared = 0;
+        for (ProductCategory category : ProductCategory.values()) {
+            for (ProductApplicationTime time : ProductApplicationTime.values()) {
+                for (SkinType skinType : skinTypes) {
+                    for (Set<Goal> goals : goalSets) {
+                        for (Sort sort : SORTS) {
+                            for (int page = 0; page < 3; page++) {
+                                assertSame(category, time, skinType, goals, PageRequest.of(page, 4, sort));
+                                compared++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(ProductCategory.values().length * ProductApplicationTime.values().length
+                * skinTypes.size() * goalSets.size() * SORTS.size() * 3, compared);
+    }
+
+    private void assertSame(ProductCategory category, ProductApplicationTime time, SkinType skinType,
+            Set<Goal> goals, Pageable pageable) {
+        Page<ProductSummaryDTO> expected = jpa.findForRoutine(category, time, skinType, goals, pageable);
+        Page<ProductSummaryDTO> actual = memory.findForRoutine(category, time, skinType, goals, pageable);
+        String context = category + " " + time + " " + skinType + " " + goals + " " + pageable;
+
+        assertEquals(expected.getTotalElements(), actual.getTotalElements(), context);
+        assertEquals(expected.map(ProductSummaryDTO::getId).getContent(),
+                actual.map(ProductSummaryDTO::getId).getContent(), context);
+    }
+
+    private ProductService service(ProductRecommendationIndex index, String backend) {
+        ProductService service = new ProductService(productRepository, mock(ProductIndexer.class),
+                mock(ProductSearchIndex.class), mock(ProductSuggestIndex.class), mock(ProductFilterIndex.class),
+                index, mock(ImageStorageService.class), mock(ImageVariantService.class));
+        ReflectionTestUtils.setField(service, "recommendationBackend", backend);
+        return service;
+    }
+
+    // Catálogo al azar con semilla fija; deja una categoría vacía y combinaciones sin coincidencias
+    private static List<Product> catalog() {
+        Random random = new Random(42);
+        ProductCategory[] categories = {
+                ProductCategory.LIMPIADOR, ProductCategory.TONICO, ProductCategory.SERUM, ProductCategory.HIDRATANTE };
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Product product = new Product();
+            product.setName("Producto " + i);
+            product.setBrand("Marca " + (i % 7));
+            product.setCategory(categories[random.nextInt(categories.length)]);
+            product.setApplicationTime(ProductApplicationTime.values()[random.nextInt(3)]);
+            product.setSkinTypes(subset(random, SkinType.class, 0.25));
+            product.setGoals(subset(random, Goal.class, 0.2));
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static <E extends Enum<E>> Set<E> subset(Random random, Class<E> type, double probability) {
+        EnumSet<E> subset = EnumSet.noneOf(type);
+        for (E value : type.getEnumConstants()) {
+            if (random.nextDouble() < probability) {
+                subset.add(value);
+            }
+        }
+        return subset;
+    }
+}
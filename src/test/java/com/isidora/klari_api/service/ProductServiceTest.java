@@ -0,0 +1,97 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.dto.ProductSummaryBatchDTO;
+import com.isidora.klari_api.dto.ProductSummaryDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.search.ProductFilterIndex;
+import com.isidora.klari_api.search.ProductIndexer;
+import com.isidora.klari_api.search.ProductRecommendationIndex;
+import com.isidora.klari_api.search.ProductSearchIndex;
+import com.isidora.klari_api.search.ProductSuggestIndex;
+
+class ProductServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductIndexer productIndexer = mock(ProductIndexer.class);
+    private final ProductService productService = new ProductService(productRepository, productIndexer,
+            mock(ProductSearchIndex.class), mock(ProductSuggestIndex.class), mock(ProductFilterIndex.class),
+            mock(ProductRecommendationIndex.class), mock(ImageStorageService.class),
+            mock(ImageVariantService.class));
+
+    @Test
+    void existingNaturalKeyIsRejectedBeforeInserting() {
+        when(productRepository.findByNaturalId("Klari", "Serum")).thenReturn(Optional.of(product()));
+
+        assertConflict(() -> productService.create(product()));
+    }
+
+    // Otra alta simultánea ganó entre la búsqueda y el INSERT: responde la clave única
+    @Test
+    void concurrentCreateLosingTheUniqueKeyIsAConflict() {
+        when(productRepository.findByNaturalId("Klari", "Serum")).thenReturn(Optional.empty());
+        when(productRepository.save(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("products_brand_name_key"));
+
+        assertConflict(() -> productService.create(product()));
+        verifyNoInteractions(productIndexer);
+    }
+
+    // El límite cuenta ids distintos: 500 con repetidos y nulos pasan, 501 no llegan a la base
+    @Test
+    void summaryBatchesAreCappedAtFiveHundredDistinctIds() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 500).boxed().toList());
+        ids.add(1L);
+        ids.add(null);
+        when(productRepository.findSummariesByIdIn(anyCollection())).thenReturn(List.of(
+                new ProductSummaryDTO(2L, "Serum", "Klari", null, ProductCategory.SERUM),
+                new ProductSummaryDTO(1L, "Tónico", "Klari", null, ProductCategory.TONICO)));
+
+        ProductSummaryBatchDTO batch = productService.findSummariesByIds(ids);
+
+        assertEquals(List.of(1L, 2L), batch.products().stream().map(ProductSummaryDTO::getId).toList());
+        assertEquals(498, batch.missing().size());
+        verify(productRepository).findSummariesByIdIn(Set.copyOf(LongStream.rangeClosed(1, 500).boxed().toList()));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> productService.findSummariesByIds(LongStream.rangeClosed(1, 501).boxed().toList()));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verify(productRepository).findSummariesByIdIn(anyCollection());
+    }
+
+    private static void assertConflict(Runnable action) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, action::run);
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setName("Serum");
+        product.setBrand("Klari");
+        product.setCategory(ProductCategory.SERUM);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        return product;
+    }
+}
@@ -0,0 +1,186 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.User;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.repository.RoutineRepository;
+import com.isidora.klari_api.repository.UserRepository;
+
+/**
+ * Activa rutinas y crea la rutina inicial desde muchos hilos a la vez contra
+ * PostgreSQL con las migraciones aplicadas (el índice único parcial no existe
+ * en H2), y comprueba que nunca queda más de una rutina activa por tipo. Solo
+ * corre con KLARI_TEST_DB_URL definida; borra únicamente los datos que crea.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${KLARI_TEST_DB_URL}",
+        "spring.datasource.username=${KLARI_TEST_DB_USERNAME:postgres}",
+        "spring.datasource.password=${KLARI_TEST_DB_PASSWORD:postgres}",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "KLARI_TEST_DB_URL", matches = ".+")
+@Import(RoutineService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoutineActivationStressTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUTINES = 8;
+    private static final int ACTIVATIONS_PER_THREAD = 25;
+
+    @MockitoBean
+    private ProductService productService;
+
+    @Autowired
+    private RoutineService routineService;
+
+    @Autowired
+    private RoutineRepository routineRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("estres");
+        user.setEmail("estres-" + System.nanoTime() + "@klari.test");
+        user.setPassword("x");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("DELETE FROM routine_products WHERE routine_id IN (SELECT id FROM routines WHERE user_id = ?)",
+                user.getId());
+        jdbc.update("DELETE FROM routines WHERE user_id = ?", user.getId());
+        jdbc.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void concurrentActivationsKeepOneActiveRoutine() throws InterruptedException {
+        List<Long> routineIds = new ArrayList<>();
+        for (int i = 0; i < ROUTINES; i++) {
+            Routine routine = new Routine();
+            routine.setUser(user);
+            routine.setRoutineType(RoutineType.DIA);
+            routine.setActive(false);
+            routineIds.add(routineRepository.save(routine).getId());
+        }
+
+        AtomicInteger activated = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        Queue<Throwable> failures = runConcurrently(() -> {
+            for (int i = 0; i < ACTIVATIONS_PER_THREAD; i++) {
+                Long routineId = routineIds.get(ThreadLocalRandom.current().nextInt(routineIds.size()));
+                try {
+                    routineService.activate(routineId);
+                    activated.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    if (e.getStatusCode() != HttpStatus.CONFLICT) {
+                        throw e;
+                    }
+                    conflicts.incrementAndGet();
+                }
+                assertTrue(activeRoutines(RoutineType.DIA) <= 1);
+            }
+        });
+
+        assertTrue(failures.isEmpty(), () -> "Errores inesperados: " + failures);
+        assertEquals(1, activeRoutines(RoutineType.DIA));
+        // Los reintentos deben resolver casi todas las carreras
+        assertTrue(activated.get() > conflicts.get(), activated + " activaciones, " + conflicts + " conflictos");
+    }
+
+    @Test
+    void concurrentInitialRoutinesCreateOnlyOne() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        Queue<Throwable> failures = runConcurrently(() -> {
+            try {
+                routineService.createInitialNightRoutine(user.getId());
+                created.incrementAndGet();
+            } catch (ResponseStatusException e) {
+                if (e.getStatusCode() != HttpStatus.CONFLICT) {
+                    throw e;
+                }
+            }
+        });
+
+        assertTrue(failures.isEmpty(), () -> "Errores inesperados: " + failures);
+        assertEquals(1, created.get());
+        assertEquals(1, activeRoutines(RoutineType.NOCHE));
+    }
+
+    private int activeRoutines(RoutineType routineType) {
+        Integer count = jdbc.queryForObject(
+                "SELECT count(*) FROM routines WHERE user_id = ? AND routine_type = ? AND active",
+                Integer.class, user.getId(), routineType.name());
+        return count != null ? count : 0;
+    }
+
+    // Todos los hilos arrancan juntos, cada uno autenticado como el usuario de la prueba
+    private Queue<Throwable> runConcurrently(Runnable task) throws InterruptedException {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                executor.execute(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(user.getId(), null, List.of()));
+                    try {
+                        start.await();
+                        task.run();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,142 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.User;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.repository.RoutineRepository;
+import com.isidora.klari_api.repository.UserRepository;
+
+/**
+ * Activación y creación de rutinas en H2, sin hilos: la versión secuencial de
+ * RoutineActivationStressTest. H2 no tiene índices parciales, así que el índice
+ * único de V5 se imita con una columna generada que solo tiene valor en las
+ * rutinas activas (los nulos no chocan entre sí).
+ */
+@DataJpaTest
+@Import(RoutineService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoutineActivationTest {
+
+    @MockitoBean
+    private ProductService productService;
+
+    @Autowired
+    private RoutineService routineService;
+
+    @Autowired
+    private RoutineRepository routineRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("ALTER TABLE routines ADD COLUMN IF NOT EXISTS active_user_id BIGINT "
+                + "GENERATED ALWAYS AS (CASE WHEN active THEN user_id END)");
+        jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS routines_user_id_routine_type_active_key "
+                + "ON routines (active_user_id, routine_type)");
+
+        user = new User();
+        user.setUsername("activacion");
+        user.setEmail("activacion-" + System.nanoTime() + "@klari.test");
+        user.setPassword("x");
+        user = userRepository.save(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getId(), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbc.update("DELETE FROM routine_products WHERE routine_id IN (SELECT id FROM routines WHERE user_id = ?)",
+                user.getId());
+        jdbc.update("DELETE FROM routines WHERE user_id = ?", user.getId());
+        jdbc.update("DELETE FROM users WHERE id = ?", user.getId());
+        jdbc.execute("DROP INDEX IF EXISTS routines_user_id_routine_type_active_key");
+        jdbc.execute("ALTER TABLE routines DROP COLUMN IF EXISTS active_user_id");
+    }
+
+    // La anterior se desactiva antes de que la nueva se escriba: el índice nunca ve dos activas
+    @Test
+    void activationSwapsTheActiveRoutineOfTheSameType() {
+        Long first = routine(RoutineType.DIA, true);
+        Long second = routine(RoutineType.DIA, false);
+        Long night = routine(RoutineType.NOCHE, true);
+
+        routineService.activate(second);
+        assertEquals(List.of(second), activeRoutines(RoutineType.DIA));
+
+        routineService.activate(first);
+        routineService.activate(first);
+        assertEquals(List.of(first), activeRoutines(RoutineType.DIA));
+        assertEquals(List.of(night), activeRoutines(RoutineType.NOCHE));
+    }
+
+    // create no consulta antes: el índice rechaza la segunda activa y se responde 409
+    @Test
+    void secondActiveRoutineIsAConflict() {
+        routine(RoutineType.NOCHE, true);
+        Routine duplicate = new Routine();
+        duplicate.setUser(user);
+        duplicate.setRoutineType(RoutineType.NOCHE);
+        duplicate.setActive(true);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> routineService.create(duplicate));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(1, activeRoutines(RoutineType.NOCHE).size());
+    }
+
+    @Test
+    void initialRoutineIsCreatedOnce() {
+        when(productService.findTopForRoutine(any(), any(), any(), any())).thenReturn(List.of());
+
+        routineService.createInitialDayRoutine(user.getId());
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> routineService.createInitialDayRoutine(user.getId()));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(1, activeRoutines(RoutineType.DIA).size());
+    }
+
+    private Long routine(RoutineType routineType, boolean active) {
+        Routine routine = new Routine();
+        routine.setUser(user);
+        routine.setRoutineType(routineType);
+        routine.setActive(active);
+        return routineRepository.save(routine).getId();
+    }
+
+    private List<Long> activeRoutines(RoutineType routineType) {
+        return jdbc.queryForList("SELECT id FROM routines WHERE user_id = ? AND routine_type = ? AND active",
+                Long.class, user.getId(), routineType.name());
+    }
+}
@@ -0,0 +1,94 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.User;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.repository.RoutineRepository;
+import com.isidora.klari_api.repository.UserRepository;
+
+class RoutineServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final RoutineRepository routineRepository = mock(RoutineRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ProductService productService = mock(ProductService.class);
+    private final RoutineService routineService = new RoutineService(routineRepository, productRepository,
+            userRepository, productService, mock(TransactionTemplate.class));
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void initialRoutineWhenOneIsActiveIsAConflict() {
+        when(routineRepository.existsByUserIdAndRoutineTypeAndActiveTrue(USER_ID, RoutineType.NOCHE)).thenReturn(true);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> routineService.createInitialNightRoutine(USER_ID));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verifyNoInteractions(userRepository, productService, productRepository);
+        verify(routineRepository, never()).saveAndFlush(any());
+    }
+
+    // Un solo SELECT para todos los pasos, en el orden de las categorías y sin repetidos ni faltantes
+    @Test
+    void initialRoutineLoadsAllStepsInOneQuery() {
+        User user = new User();
+        user.setId(USER_ID);
+        when(userRepository.findWithGoalsById(USER_ID)).thenReturn(Optional.of(user));
+        when(productService.findTopForRoutine(anyList(), any(ProductApplicationTime.class), any(), any()))
+                .thenReturn(List.of(3L, 1L, 3L, 9L));
+        when(productRepository.findAllById(List.of(3L, 1L, 3L, 9L)))
+                .thenReturn(List.of(product(1L), product(3L)));
+        when(routineRepository.saveAndFlush(any(Routine.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Routine routine = routineService.createInitialDayRoutine(USER_ID);
+
+        verify(productRepository).findAllById(anyList());
+        assertEquals(List.of(3L, 1L), routine.getProducts().stream().map(Product::getId).toList());
+        assertEquals(RoutineType.DIA, routine.getRoutineType());
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(ProductCategory.SERUM);
+        return product;
+    }
+}
@@ -0,0 +1,134 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.isidora.klari_api.dto.RoutineSummaryDTO;
+import com.isidora.klari_api.model.Product;
+import com.isidora.klari_api.model.Routine;
+import com.isidora.klari_api.model.User;
+import com.isidora.klari_api.model.enums.ProductApplicationTime;
+import com.isidora.klari_api.model.enums.ProductCategory;
+import com.isidora.klari_api.model.enums.RoutineType;
+import com.isidora.klari_api.repository.ProductRepository;
+import com.isidora.klari_api.repository.RoutineRepository;
+import com.isidora.klari_api.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Sin transacción de prueba: cada lectura abre la suya, como en una petición real
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(RoutineService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoutineSummaryStatementCountTest {
+
+    private static final int ROUTINES = 50;
+    private static final int STEPS = 4;
+
+    @MockitoBean
+    private ProductService productService;
+
+    @Autowired
+    private RoutineService routineService;
+
+    @Autowired
+    private RoutineRepository routineRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUsername("rutinas");
+        user.setEmail("rutinas@klari.test");
+        user.setPassword("x");
+        user = userRepository.save(user);
+        userId = user.getId();
+
+        List<Product> products = productRepository.saveAll(IntStream.range(0, STEPS)
+                .mapToObj(RoutineSummaryStatementCountTest::product)
+                .toList());
+        List<Routine> routines = new ArrayList<>();
+        for (int i = 0; i < ROUTINES; i++) {
+            Routine routine = new Routine();
+            routine.setUser(user);
+            routine.setRoutineType(i % 2 == 0 ? RoutineType.DIA : RoutineType.NOCHE);
+            routine.setActive(i < 2);
+            routine.getProducts().addAll(products);
+            routines.add(routine);
+        }
+        routineRepository.saveAll(routines);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        routineRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void userRoutinesLoadInTwoStatements() {
+        statistics.clear();
+
+        List<RoutineSummaryDTO> routines = routineService.findByUserId(userId);
+
+        assertEquals(ROUTINES, routines.size());
+        routines.forEach(routine -> assertEquals(STEPS, routine.products().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void inactiveRoutinesLoadInTwoStatements() {
+        statistics.clear();
+
+        List<RoutineSummaryDTO> routines = routineService.findInactiveDayRoutines(userId);
+
+        assertEquals(ROUTINES / 2 - 1, routines.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private static Product product(int index) {
+        Product product = new Product();
+        product.setName("Paso " + index);
+        product.setBrand("Klari");
+        product.setIngredients("Aqua, Glycerin");
+        product.setDescription("Descripción larga que no debe viajar en la rutina");
+        product.setCategory(ProductCategory.values()[index]);
+        product.setApplicationTime(ProductApplicationTime.AMBOS);
+        return product;
+    }
+}
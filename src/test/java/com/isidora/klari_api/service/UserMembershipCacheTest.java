@@ -0,0 +1,92 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.isidora.klari_api.repository.UserJdbcRepository;
+import com.isidora.klari_api.repository.UserJdbcRepository.Membership;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipIds;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserMembershipCacheTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final UserJdbcRepository userJdbcRepository = mock(UserJdbcRepository.class);
+    private final UserMembershipCache cache = new UserMembershipCache(userJdbcRepository, new SimpleMeterRegistry(),
+            1000, 600);
+
+    @BeforeEach
+    void setUp() {
+        when(userJdbcRepository.findMembershipIds(USER_ID))
+                .thenReturn(new MembershipIds(new long[] { 2, 5, 9 }, new long[] { 4 }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Las altas se mezclan ordenadas y sin repetidos; las bajas de ids ausentes no cambian nada
+    @Test
+    void mergeKeepsIdsSortedAndDistinct() {
+        cache.get(USER_ID);
+
+        cache.updateAfterCommit(USER_ID, Membership.FAVORITES, List.of(7L, 1L, 5L, 7L, 12L), Set.of(9L, 30L));
+
+        MembershipIds ids = cache.get(USER_ID);
+        assertArrayEquals(new long[] { 1, 2, 5, 7, 12 }, ids.favorites());
+        assertArrayEquals(new long[] { 4 }, ids.inventory());
+        verify(userJdbcRepository, times(1)).findMembershipIds(USER_ID);
+    }
+
+    @Test
+    void removingEverythingLeavesAnEmptyArray() {
+        cache.get(USER_ID);
+
+        cache.updateAfterCommit(USER_ID, Membership.INVENTORY, Set.of(), Set.of(4L));
+
+        assertArrayEquals(new long[0], cache.get(USER_ID).inventory());
+    }
+
+    // Agregar y quitar el mismo producto en una transacción: se aplican al confirmar y en orden
+    @Test
+    void changesInOneTransactionApplyInOrderAfterCommit() {
+        cache.get(USER_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.updateAfterCommit(USER_ID, Membership.FAVORITES, Set.of(6L), Set.of());
+        cache.updateAfterCommit(USER_ID, Membership.FAVORITES, Set.of(), Set.of(6L, 2L));
+        assertArrayEquals(new long[] { 2, 5, 9 }, cache.get(USER_ID).favorites());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertArrayEquals(new long[] { 5, 9 }, cache.get(USER_ID).favorites());
+    }
+
+    // Un usuario que no está en la caché no se carga solo para aplicar un cambio
+    @Test
+    void changesForUncachedUsersAreDropped() {
+        cache.updateAfterCommit(USER_ID, Membership.FAVORITES, Set.of(6L), Set.of());
+
+        verify(userJdbcRepository, never()).findMembershipIds(USER_ID);
+        assertArrayEquals(new long[] { 2, 5, 9 }, cache.get(USER_ID).favorites());
+    }
+}
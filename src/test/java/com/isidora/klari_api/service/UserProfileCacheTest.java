@@ -0,0 +1,84 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.isidora.klari_api.dto.UserProfileDTO;
+import com.isidora.klari_api.model.enums.SkinType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserProfileCacheTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final UserProfileCache cache = new UserProfileCache(new SimpleMeterRegistry(), 100, 600);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsOnceAndSkipsMissingUsers() {
+        UserProfileDTO first = cache.get(USER_ID, this::load);
+
+        assertSame(first, cache.get(USER_ID, this::load));
+        assertSame(first, cache.getIfPresent(USER_ID));
+        assertEquals(1, loads.get());
+        // Un usuario inexistente no queda guardado
+        assertNull(cache.get(8L, id -> null));
+        assertNull(cache.getIfPresent(8L));
+    }
+
+    // Dentro de una transacción el perfil viejo sigue hasta el commit; un rollback no lo toca
+    @Test
+    void evictionWaitsForTheCommit() {
+        cache.get(USER_ID, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(USER_ID);
+        assertEquals(1, loads.get());
+        cache.get(USER_ID, this::load);
+        assertEquals(1, loads.get());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(1, loads.get());
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(USER_ID);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertNull(cache.getIfPresent(USER_ID));
+        cache.get(USER_ID, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictionOutsideATransactionIsImmediate() {
+        cache.get(USER_ID, this::load);
+
+        cache.evictAfterCommit(USER_ID);
+
+        assertNull(cache.getIfPresent(USER_ID));
+    }
+
+    private UserProfileDTO load(Long id) {
+        loads.incrementAndGet();
+        return new UserProfileDTO(id, "ana", "ana@klari.test", SkinType.MIXTA, Set.of());
+    }
+}
@@ -0,0 +1,84 @@
+package com.isidora.klari_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.isidora.klari_api.dto.MembershipBatchDTO;
+import com.isidora.klari_api.dto.MembershipBatchRequestDTO;
+import com.isidora.klari_api.dto.MembershipChangeDTO;
+import com.isidora.klari_api.repository.UserJdbcRepository;
+import com.isidora.klari_api.repository.UserJdbcRepository.Membership;
+import com.isidora.klari_api.repository.UserJdbcRepository.MembershipChanges;
+import com.isidora.klari_api.repository.UserRepository;
+
+// La sentencia del lote es de PostgreSQL (UserJdbcRepositoryTest); aquí, lo que el servicio hace con su resultado
+class UserServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final UserJdbcRepository userJdbcRepository = mock(UserJdbcRepository.class);
+    private final UserMembershipCache userMembershipCache = mock(UserMembershipCache.class);
+    private final UserService userService = new UserService(mock(UserRepository.class), userJdbcRepository,
+            mock(UserProfileCache.class), userMembershipCache);
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // Orden pedido, sin repetidos; los inexistentes van a missing y la caché solo recibe los que existen
+    @Test
+    void batchReportsEachIdAndUpdatesTheCacheWithExistingOnes() {
+        when(userJdbcRepository.apply(Membership.FAVORITES, USER_ID, Set.of(3L, 1L, 9L), Set.of(4L, 5L)))
+                .thenReturn(new MembershipChanges(Set.of(3L), Set.of(4L), Set.of(3L, 1L)));
+
+        MembershipBatchDTO result = userService.updateFavorites(USER_ID,
+                new MembershipBatchRequestDTO(List.of(3L, 1L, 3L, 9L), List.of(4L, 5L)));
+
+        assertEquals(List.of(new MembershipChangeDTO(3L, true), new MembershipChangeDTO(1L, false)),
+                result.added());
+        assertEquals(List.of(new MembershipChangeDTO(4L, true), new MembershipChangeDTO(5L, false)),
+                result.removed());
+        assertEquals(List.of(9L), result.missing());
+        verify(userMembershipCache).updateAfterCommit(USER_ID, Membership.FAVORITES, Set.of(3L, 1L),
+                Set.of(4L, 5L));
+    }
+
+    @Test
+    void invalidBatchesAreRejectedBeforeTheStatement() {
+        assertBadRequest(new MembershipBatchRequestDTO(List.of(1L, 2L), List.of(2L)));
+        assertBadRequest(new MembershipBatchRequestDTO(LongStream.rangeClosed(1, 501).boxed().toList(), null));
+
+        MembershipBatchDTO empty = userService.updateInventory(USER_ID, new MembershipBatchRequestDTO(null, null));
+        assertEquals(List.of(), empty.added());
+        verifyNoInteractions(userJdbcRepository, userMembershipCache);
+    }
+
+    private void assertBadRequest(MembershipBatchRequestDTO request) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> userService.updateInventory(USER_ID, request));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+}
@@ -0,0 +1,154 @@
+package com.isidora.klari_api.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.isidora.klari_api.search.CatalogVersion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+class CatalogResponseCacheFilterTest {
+
+    private static final String BODY = "{\"content\":[" + "{\"id\":1,\"name\":\"Sérum\"},".repeat(40) + "{}]}";
+
+    private final CatalogVersion catalogVersion = mock(CatalogVersion.class);
+    private final CatalogResponseCacheFilter filter = new CatalogResponseCacheFilter(catalogVersion,
+            new SimpleMeterRegistry(), true, 60, 300, 1 << 20, 1 << 16);
+    private final AtomicInteger calls = new AtomicInteger();
+    private int status = 200;
+    private String etag;
+
+    private final FilterChain chain = (request, response) -> {
+        calls.incrementAndGet();
+        HttpServletResponse http = (HttpServletResponse) response;
+        http.setStatus(status);
+        if (etag != null) {
+            http.setHeader(HttpHeaders.ETAG, etag);
+        }
+        http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    void repeatedRequestsAreServedFromMemoryInAnyParameterOrder() throws Exception {
+        MockHttpServletResponse first = get("/api/products/search", "q=gel&category=SERUM");
+        MockHttpServletResponse second = get("/api/products/search", "category=SERUM&q=gel");
+
+        assertEquals(1, calls.get());
+        assertEquals(200, second.getStatus());
+        assertEquals(BODY, second.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=60, stale-while-revalidate=300", second.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("Accept, Accept-Encoding", second.getHeader(HttpHeaders.VARY));
+
+        get("/api/products/search", "q=gel&category=TONICO");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void conditionalAndCompressedRequestsUseTheStoredEntry() throws Exception {
+        String stored = get("/api/products/1", null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest conditional = request("/api/products/1", null);
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"otro\", " + stored.substring(2));
+        MockHttpServletResponse notModified = run(conditional);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        MockHttpServletRequest compressed = request("/api/products/1", null);
+        compressed.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        MockHttpServletResponse gzip = run(compressed);
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), gunzip(gzip.getContentAsByteArray()));
+
+        MockHttpServletRequest refused = request("/api/products/1", null);
+        refused.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        assertNull(run(refused).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void catalogWritesInvalidateAndControllerEtagsAreKept() throws Exception {
+        etag = "\"7-3\"";
+        when(catalogVersion.current()).thenReturn(1L);
+        assertEquals("\"7-3\"", get("/api/products/7", null).getHeader(HttpHeaders.ETAG));
+        get("/api/products/7", null);
+        assertEquals(1, calls.get());
+
+        when(catalogVersion.current()).thenReturn(2L);
+        get("/api/products/7", null);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void onlySuccessfulJsonCatalogReadsAreStored() throws Exception {
+        status = 404;
+        MockHttpServletResponse missing = get("/api/products/99", null);
+        get("/api/products/99", null);
+        assertEquals(2, calls.get());
+        assertNull(missing.getHeader(HttpHeaders.CACHE_CONTROL));
+        status = 200;
+
+        // Exportación, NDJSON, la raíz sin pedir JSON, otros métodos y otras rutas pasan de largo
+        get("/api/products/export", null);
+        MockHttpServletRequest ndjson = request("/api/products/search", null);
+        ndjson.addHeader(HttpHeaders.ACCEPT, "application/x-ndjson");
+        run(ndjson);
+        run(new MockHttpServletRequest("GET", "/api/products"));
+        run(new MockHttpServletRequest("POST", "/api/products"));
+        get("/api/users/1", null);
+        assertEquals(7, calls.get());
+
+        // La raíz con Accept JSON es el listado paginado y sí se guarda
+        get("/api/products", null);
+        get("/api/products", null);
+        assertEquals(8, calls.get());
+    }
+
+    private MockHttpServletResponse get(String path, String query) throws ServletException, IOException {
+        return run(request(path, query));
+    }
+
+    private static MockHttpServletRequest request(String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (query != null) {
+            request.setQueryString(query);
+            for (String parameter : query.split("&")) {
+                String[] pair = parameter.split("=", 2);
+                request.addParameter(pair[0], pair[1]);
+            }
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}